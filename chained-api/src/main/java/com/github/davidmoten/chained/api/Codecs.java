@@ -0,0 +1,155 @@
+package com.github.davidmoten.chained.api;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper methods for use by generated codecs.
+ */
+public final class Codecs {
+
+    private Codecs() {
+        // prevent instantiation
+    }
+
+    /**
+     * Writes the string as its UTF-8 byte length (an {@code int}) followed by the
+     * UTF-8 bytes. Strings that only contain ASCII characters are written without
+     * creating an intermediate byte array.
+     * 
+     * @param buffer destination
+     * @param s      string to write (not null)
+     */
+    public static void writeString(ByteBuffer buffer, String s) {
+        int length = s.length();
+        if (isAscii(s)) {
+            buffer.putInt(length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) s.charAt(i));
+            }
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(ByteBuffer, String)}.
+     * 
+     * @param buffer source
+     * @return string
+     * @throws IllegalArgumentException if the length is negative or more than the
+     *                                  remaining bytes of the buffer
+     */
+    public static String readString(ByteBuffer buffer) {
+        int length = readSize(buffer);
+        if (buffer.hasArray()) {
+            // decode in place without copying the bytes first
+            int position = buffer.position();
+            String s = new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+            buffer.position(position + length);
+            return s;
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads a length or element count (an {@code int}) and checks that it is not
+     * negative and not more than the remaining bytes of the buffer (every element
+     * takes at least one byte) so that a corrupt value cannot cause a large
+     * allocation.
+     * 
+     * @param buffer source
+     * @return size
+     * @throws IllegalArgumentException if the size is negative or more than the
+     *                                  remaining bytes of the buffer
+     */
+    public static int readSize(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IllegalArgumentException(
+                    "invalid size " + size + " with " + buffer.remaining() + " bytes remaining");
+        }
+        return size;
+    }
+
+    /**
+     * Writes the UTF-8 bytes of the string (without a length) starting at the
+     * given index of the buffer. The position of the buffer is not changed.
+     * 
+     * @param buffer destination
+     * @param index  index of the first byte
+     * @param s      string to write (not null)
+     * @return number of bytes written
+     */
+    public static int putString(ByteBuffer buffer, int index, String s) {
+        int length = s.length();
+        if (isAscii(s)) {
+            for (int i = 0; i < length; i++) {
+                buffer.put(index + i, (byte) s.charAt(i));
+            }
+            return length;
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(index + i, bytes[i]);
+            }
+            return bytes.length;
+        }
+    }
+
+    /**
+     * Reads {@code length} UTF-8 bytes starting at the given index of the buffer
+     * as a string. The position of the buffer is not changed.
+     * 
+     * @param buffer source
+     * @param index  index of the first byte
+     * @param length number of bytes
+     * @return string
+     */
+    public static String getString(ByteBuffer buffer, int index, int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + index, length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            // a duplicate allows a bulk copy without moving the position of buffer
+            ByteBuffer b = buffer.duplicate();
+            b.position(index);
+            b.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Writes a boolean as a single byte (1 for true, 0 for false).
+     * 
+     * @param buffer destination
+     * @param value  value to write
+     */
+    public static void writeBoolean(ByteBuffer buffer, boolean value) {
+        buffer.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Reads a boolean written by {@link #writeBoolean(ByteBuffer, boolean)}.
+     * 
+     * @param buffer source
+     * @return value
+     */
+    public static boolean readBoolean(ByteBuffer buffer) {
+        return buffer.get() != 0;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
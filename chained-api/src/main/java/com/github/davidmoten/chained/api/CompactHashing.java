@@ -0,0 +1,43 @@
+package com.github.davidmoten.chained.api;
+
+/**
+ * Open-addressing (linear probing) index shared by the compact and primitive
+ * set and map implementations. The table stores the index (plus one) of an
+ * element in an array that holds the elements in iteration order, 0 denotes an
+ * empty slot.
+ */
+final class CompactHashing {
+
+    /**
+     * Collections with at most this many elements are searched linearly and no
+     * table is allocated.
+     */
+    static final int LINEAR_SCAN_MAX_SIZE = 8;
+
+    private CompactHashing() {
+        // prevent instantiation
+    }
+
+    static int[] createTable(int size) {
+        // keep load factor at or below 0.5
+        int capacity = Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1;
+        return new int[capacity];
+    }
+
+    static int hash(Object o) {
+        return spread(o == null ? 0 : o.hashCode());
+    }
+
+    static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    static void insert(int[] table, int hash, int index) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = index + 1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list backed by an array of exactly the list size.
+ * 
+ * @param <T> element type
+ */
+final class CompactList<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] elements;
+
+    CompactList(Collection<? extends T> c) {
+        this.elements = c.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        return (T) elements[index];
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+}
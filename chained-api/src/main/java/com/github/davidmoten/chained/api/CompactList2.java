@@ -0,0 +1,39 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of exactly two elements held in fields (no backing array).
+ * 
+ * @param <T> element type
+ */
+final class CompactList2<T> extends AbstractList<T> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final T e0;
+    private final T e1;
+
+    CompactList2(T e0, T e1) {
+        this.e0 = e0;
+        this.e1 = e1;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index == 0) {
+            return e0;
+        } else if (index == 1) {
+            return e1;
+        } else {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for size 2");
+        }
+    }
+
+    @Override
+    public int size() {
+        return 2;
+    }
+}
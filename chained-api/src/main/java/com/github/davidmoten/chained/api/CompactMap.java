@@ -0,0 +1,138 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map that keeps its keys and values interleaved in an array of
+ * exactly twice the map size (in the iteration order of the source map) plus
+ * an open-addressing index for larger sizes.
+ * 
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class CompactMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // k0, v0, k1, v1, ...
+    private final Object[] keysAndValues;
+
+    // null when size is small enough to search linearly, rebuilt on
+    // deserialization because hash codes (of enums for example) may differ between
+    // JVMs
+    private final transient int[] table;
+
+    CompactMap(Map<? extends K, ? extends V> m) {
+        Object[] kv = new Object[m.size() * 2];
+        int[] t = CompactHashing.createTable(m.size());
+        int count = 0;
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            K key = entry.getKey();
+            // de-duplicate in case the source map is not based on equals
+            if (indexOf(kv, t, key) < 0) {
+                CompactHashing.insert(t, CompactHashing.hash(key), count);
+                kv[2 * count] = key;
+                kv[2 * count + 1] = entry.getValue();
+                count++;
+            }
+        }
+        this.keysAndValues = count == m.size() ? kv : Arrays.copyOf(kv, 2 * count);
+        this.table = count <= CompactHashing.LINEAR_SCAN_MAX_SIZE ? null : t;
+    }
+
+    private static int indexOf(Object[] keysAndValues, int[] table, Object key) {
+        int mask = table.length - 1;
+        int i = CompactHashing.hash(key) & mask;
+        while (table[i] != 0) {
+            int index = table[i] - 1;
+            if (Objects.equals(keysAndValues[2 * index], key)) {
+                return index;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int indexOf(Object key) {
+        if (table == null) {
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                if (Objects.equals(keysAndValues[i], key)) {
+                    return i / 2;
+                }
+            }
+            return -1;
+        } else {
+            return indexOf(keysAndValues, table, key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) keysAndValues[2 * index + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keysAndValues.length / 2;
+    }
+
+    private Object readResolve() {
+        Map<Object, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            m.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return new CompactMap<>(m);
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new Iterator<Entry<K, V>>() {
+
+                    int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keysAndValues.length;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public Entry<K, V> next() {
+                        if (index >= keysAndValues.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<K, V> entry = new SimpleImmutableEntry<>((K) keysAndValues[index],
+                                (V) keysAndValues[index + 1]);
+                        index += 2;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+        };
+    }
+}
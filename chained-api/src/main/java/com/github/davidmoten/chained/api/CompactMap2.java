@@ -0,0 +1,86 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable map of exactly two entries with distinct keys held in fields (no
+ * backing array) in the iteration order of the source map.
+ * 
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class CompactMap2<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final K k0;
+    private final V v0;
+    private final K k1;
+    private final V v1;
+
+    CompactMap2(K k0, V v0, K k1, V v1) {
+        this.k0 = k0;
+        this.v0 = v0;
+        this.k1 = k1;
+        this.v1 = v1;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (Objects.equals(k0, key)) {
+            return v0;
+        } else if (Objects.equals(k1, key)) {
+            return v1;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return Objects.equals(k0, key) || Objects.equals(k1, key);
+    }
+
+    @Override
+    public int size() {
+        return 2;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new Iterator<Entry<K, V>>() {
+
+                    int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < 2;
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        if (index >= 2) {
+                            throw new NoSuchElementException();
+                        }
+                        return index++ == 0 ? new SimpleImmutableEntry<>(k0, v0) : new SimpleImmutableEntry<>(k1, v1);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return 2;
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable set that keeps its elements in an array of exactly the set size (in
+ * the iteration order of the source collection) plus an open-addressing index
+ * for larger sizes.
+ * 
+ * @param <T> element type
+ */
+final class CompactSet<T> extends AbstractSet<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] elements;
+
+    // null when size is small enough to search linearly, rebuilt on
+    // deserialization because hash codes (of enums for example) may differ between
+    // JVMs
+    private final transient int[] table;
+
+    CompactSet(Collection<? extends T> c) {
+        Object[] source = c.toArray();
+        int[] t = CompactHashing.createTable(source.length);
+        int count = 0;
+        for (Object o : source) {
+            // de-duplicate in case the source set is not based on equals
+            if (indexOf(source, t, o) < 0) {
+                CompactHashing.insert(t, CompactHashing.hash(o), count);
+                source[count] = o;
+                count++;
+            }
+        }
+        this.elements = count == source.length ? source : Arrays.copyOf(source, count);
+        this.table = count <= CompactHashing.LINEAR_SCAN_MAX_SIZE ? null : t;
+    }
+
+    private static int indexOf(Object[] elements, int[] table, Object o) {
+        int mask = table.length - 1;
+        int i = CompactHashing.hash(o) & mask;
+        while (table[i] != 0) {
+            int index = table[i] - 1;
+            if (Objects.equals(elements[index], o)) {
+                return index;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (table == null) {
+            for (Object element : elements) {
+                if (Objects.equals(element, o)) {
+                    return true;
+                }
+            }
+            return false;
+        } else {
+            return indexOf(elements, table, o) >= 0;
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < elements.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public T next() {
+                if (index >= elements.length) {
+                    throw new NoSuchElementException();
+                }
+                return (T) elements[index++];
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return elements.length;
+    }
+
+    private Object readResolve() {
+        return new CompactSet<>(Arrays.asList(elements));
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable set of exactly two distinct elements held in fields (no backing
+ * array) in the iteration order of the source collection.
+ * 
+ * @param <T> element type
+ */
+final class CompactSet2<T> extends AbstractSet<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final T e0;
+    private final T e1;
+
+    CompactSet2(T e0, T e1) {
+        this.e0 = e0;
+        this.e1 = e1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return Objects.equals(e0, o) || Objects.equals(e1, o);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+
+            int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < 2;
+            }
+
+            @Override
+            public T next() {
+                if (index >= 2) {
+                    throw new NoSuchElementException();
+                }
+                return index++ == 0 ? e0 : e1;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return 2;
+    }
+}
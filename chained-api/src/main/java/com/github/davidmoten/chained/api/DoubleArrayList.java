@@ -0,0 +1,138 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Mutable {@code List<Double>} backed by a {@code double[]}, used by generated
+ * builders to accumulate elements without boxing. Null elements are not
+ * supported (a {@link NullPointerException} is thrown).
+ */
+public final class DoubleArrayList extends AbstractList<Double> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final double[] EMPTY = new double[0];
+
+    private double[] elements = EMPTY;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public DoubleArrayList() {
+        // empty
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     * 
+     * @param value value to add
+     */
+    public void addDouble(double value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+    }
+
+    /**
+     * Returns the value at the given position.
+     * 
+     * @param index position in the list
+     * @return value at the given position
+     */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Returns a copy of the values in the list as an array.
+     * 
+     * @return copy of the values
+     */
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns a copy of this list backed by an array of exactly the list size.
+     * 
+     * @return copy of this list
+     */
+    DoubleArrayList trimmedCopy() {
+        DoubleArrayList copy = new DoubleArrayList();
+        copy.elements = toDoubleArray();
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public boolean add(Double value) {
+        addDouble(value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Double value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        double v = value;
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = v;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Double set(int index, Double value) {
+        checkIndex(index);
+        double v = value;
+        double previous = elements[index];
+        elements[index] = v;
+        return previous;
+    }
+
+    @Override
+    public Double remove(int index) {
+        checkIndex(index);
+        double previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int newCapacity = Math.max(capacity, Math.max(10, elements.length + (elements.length >> 1)));
+            elements = Arrays.copyOf(elements, newCapacity);
+        }
+    }
+}
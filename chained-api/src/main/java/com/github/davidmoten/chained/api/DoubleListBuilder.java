@@ -0,0 +1,82 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * List builder used by generated code for {@code List<Double>} fields. If the
+ * list is an {@link DoubleArrayList} then {@link #add(double)} stores the value
+ * without boxing, otherwise the value is boxed and added to the list.
+ * 
+ * @param <S> the type of the continuation object being returned by buildList
+ *            method
+ */
+public final class DoubleListBuilder<S> extends ListBuilder<Double, S> {
+
+    private final List<Double> list;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject provides the continuation object to be returned by
+     *                     buildList method
+     * @param list         the list to which elements are added
+     */
+    public DoubleListBuilder(Supplier<S> returnObject, List<Double> list) {
+        super(returnObject, list);
+        this.list = list;
+    }
+
+    /**
+     * Adds a value to the list.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public DoubleListBuilder<S> add(double value) {
+        if (list instanceof DoubleArrayList) {
+            ((DoubleArrayList) list).addDouble(value);
+        } else {
+            list.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values in the array to the list.
+     * 
+     * @param values values to add
+     * @return this
+     */
+    public DoubleListBuilder<S> addAll(double[] values) {
+        for (double v : values) {
+            add(v);
+        }
+        return this;
+    }
+
+    @Override
+    public DoubleListBuilder<S> add(Double value) {
+        super.add(value);
+        return this;
+    }
+
+    @Override
+    public DoubleListBuilder<S> add(Double... values) {
+        super.add(values);
+        return this;
+    }
+
+    @Override
+    public DoubleListBuilder<S> addAll(Collection<? extends Double> values) {
+        super.addAll(values);
+        return this;
+    }
+
+    @Override
+    public DoubleListBuilder<S> set(Collection<? extends Double> values) {
+        super.set(values);
+        return this;
+    }
+}
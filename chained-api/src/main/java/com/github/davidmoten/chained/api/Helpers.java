@@ -1,12 +1,19 @@
 package com.github.davidmoten.chained.api;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import com.github.davidmoten.chained.api.annotation.Validation;
+
 /**
  * Helper methods for use by generated code.
  */
@@ -81,6 +88,118 @@ public final class Helpers {
         return Collections.unmodifiableCollection(o);
     }
 
+    /**
+     * Returns an immutable copy of the specified list that uses no more memory
+     * than required for its elements. If the specified list is null, returns null.
+     * Lists of size 0 and 1 are returned as the JDK empty and singleton lists,
+     * lists of size 2 hold their elements in fields and primitive backed lists
+     * (like {@link IntArrayList}) are copied without boxing.
+     *
+     * @param <T> list element type
+     * @param o   input list
+     * @return immutable compact copy of the specified list, or null if the input
+     *         list is null
+     */
+    public static <T> List<T> compact(List<T> o) {
+        if (o == null) {
+            return null;
+        } else if (o instanceof CompactList || o instanceof CompactList2) {
+            return o;
+        } else if (o.isEmpty()) {
+            return Collections.emptyList();
+        } else if (o.size() == 1) {
+            return Collections.singletonList(o.get(0));
+        } else {
+            return compactMultiple(o);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> compactMultiple(List<T> o) {
+        // keep primitive backed lists unboxed
+        if (o instanceof IntArrayList) {
+            return (List<T>) Collections.unmodifiableList(((IntArrayList) o).trimmedCopy());
+        } else if (o instanceof LongArrayList) {
+            return (List<T>) Collections.unmodifiableList(((LongArrayList) o).trimmedCopy());
+        } else if (o instanceof DoubleArrayList) {
+            return (List<T>) Collections.unmodifiableList(((DoubleArrayList) o).trimmedCopy());
+        } else if (o.size() == 2) {
+            return new CompactList2<>(o.get(0), o.get(1));
+        } else {
+            return new CompactList<>(o);
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the specified set that uses no more memory than
+     * required for its elements (plus an index table for larger sets). Iteration
+     * order of the input set is preserved. If the specified set is null, returns
+     * null. Sets of size 0 and 1 are returned as the JDK empty and singleton sets
+     * and sets of size 2 hold their elements in fields.
+     *
+     * @param <T> set element type
+     * @param o   input set
+     * @return immutable compact copy of the specified set, or null if the input
+     *         set is null
+     */
+    public static <T> Set<T> compact(Set<T> o) {
+        if (o == null) {
+            return null;
+        } else if (o instanceof CompactSet || o instanceof CompactSet2) {
+            return o;
+        } else if (o.isEmpty()) {
+            return Collections.emptySet();
+        } else if (o.size() == 1) {
+            return Collections.singleton(o.iterator().next());
+        } else if (o.size() == 2) {
+            Iterator<T> it = o.iterator();
+            T e0 = it.next();
+            T e1 = it.next();
+            // the source set may not be based on equals
+            return Objects.equals(e0, e1) ? Collections.singleton(e0) : new CompactSet2<>(e0, e1);
+        } else {
+            return new CompactSet<>(o);
+        }
+    }
+
+    /**
+     * Returns an immutable copy of the specified map that uses no more memory than
+     * required for its entries (plus an index table for larger maps). Iteration
+     * order of the input map is preserved. If the specified map is null, returns
+     * null. Maps of size 0 and 1 are returned as the JDK empty and singleton maps
+     * and maps of size 2 hold their entries in fields.
+     *
+     * @param <K> map key type
+     * @param <V> map value type
+     * @param o   input map
+     * @return immutable compact copy of the specified map, or null if the input
+     *         map is null
+     */
+    public static <K, V> Map<K, V> compact(Map<K, V> o) {
+        if (o == null) {
+            return null;
+        } else if (o instanceof CompactMap || o instanceof CompactMap2) {
+            return o;
+        } else if (o.isEmpty()) {
+            return Collections.emptyMap();
+        } else if (o.size() == 1) {
+            Map.Entry<K, V> entry = o.entrySet().iterator().next();
+            return Collections.singletonMap(entry.getKey(), entry.getValue());
+        } else if (o.size() == 2) {
+            Iterator<Map.Entry<K, V>> it = o.entrySet().iterator();
+            Map.Entry<K, V> e0 = it.next();
+            Map.Entry<K, V> e1 = it.next();
+            // the source map may not be based on equals
+            if (Objects.equals(e0.getKey(), e1.getKey())) {
+                return Collections.singletonMap(e0.getKey(), e0.getValue());
+            } else {
+                return new CompactMap2<>(e0.getKey(), e0.getValue(), e1.getKey(), e1.getValue());
+            }
+        } else {
+            return new CompactMap<>(o);
+        }
+    }
+
     /**
      * Returns the object as is. This method exists as a fallback for types that
      * don't have convenient unmodifiable wrappers in the JDK.
@@ -149,4 +268,106 @@ public final class Helpers {
         }
         return result;
     }
+
+    /**
+     * Appends the string representation of a value to a {@link StringBuilder}.
+     * Collections and maps are written element by element (in the same format as
+     * their {@code toString} methods) and only the first {@code maxElements}
+     * elements are written, followed by {@code ...(N more)} if there are more.
+     * 
+     * @param b           the builder to append to
+     * @param value       value to append (may be null)
+     * @param maxElements maximum number of collection or map elements to write
+     * @return the builder
+     */
+    public static StringBuilder appendTo(StringBuilder b, Object value, int maxElements) {
+        try {
+            appendTo((Appendable) b, value, maxElements);
+        } catch (IOException e) {
+            // StringBuilder does not throw IOException
+            throw new UncheckedIOException(e);
+        }
+        return b;
+    }
+
+    /**
+     * Appends the string representation of a value to an {@link Appendable}.
+     * Collections and maps are written element by element (in the same format as
+     * their {@code toString} methods) and only the first {@code maxElements}
+     * elements are written, followed by {@code ...(N more)} if there are more.
+     * 
+     * @param a           the appendable to write to
+     * @param value       value to append (may be null)
+     * @param maxElements maximum number of collection or map elements to write
+     * @throws IOException if thrown by the appendable
+     */
+    public static void appendTo(Appendable a, Object value, int maxElements) throws IOException {
+        if (value instanceof Collection) {
+            Collection<?> c = (Collection<?>) value;
+            a.append('[');
+            int i = 0;
+            for (Object x : c) {
+                if (i > 0) {
+                    a.append(", ");
+                }
+                if (i == maxElements) {
+                    appendMore(a, c.size() - i);
+                    break;
+                }
+                a.append(String.valueOf(x));
+                i++;
+            }
+            a.append(']');
+        } else if (value instanceof Map) {
+            Map<?, ?> m = (Map<?, ?>) value;
+            a.append('{');
+            int i = 0;
+            for (Map.Entry<?, ?> entry : m.entrySet()) {
+                if (i > 0) {
+                    a.append(", ");
+                }
+                if (i == maxElements) {
+                    appendMore(a, m.size() - i);
+                    break;
+                }
+                a.append(String.valueOf(entry.getKey()));
+                a.append('=');
+                a.append(String.valueOf(entry.getValue()));
+                i++;
+            }
+            a.append('}');
+        } else {
+            a.append(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Returns the validation mode of the given interface, overridden by the system
+     * property {@code chained.validation.<className>} or else
+     * {@code chained.validation} if set. Generated code that does not support
+     * {@link Validation#DEFERRED} treats it as {@link Validation#EAGER}.
+     *
+     * @param className         the class name of the annotated interface
+     * @param defaultValidation validation mode specified at compile time
+     * @return validation mode to use
+     * @throws IllegalArgumentException if the system property value is not the
+     *                                  name of a {@link Validation} constant
+     */
+    public static Validation validation(String className, Validation defaultValidation) {
+        String value = System.getProperty("chained.validation." + className);
+        if (value == null) {
+            value = System.getProperty("chained.validation");
+        }
+        if (value == null) {
+            return defaultValidation;
+        } else {
+            return Validation.valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    private static void appendMore(Appendable a, int count) throws IOException {
+        a.append("...(");
+        a.append(Integer.toString(count));
+        a.append(" more)");
+    }
 }
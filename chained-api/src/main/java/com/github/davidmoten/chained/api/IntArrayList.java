@@ -0,0 +1,138 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Mutable {@code List<Integer>} backed by an {@code int[]}, used by generated
+ * builders to accumulate elements without boxing. Null elements are not
+ * supported (a {@link NullPointerException} is thrown).
+ */
+public final class IntArrayList extends AbstractList<Integer> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] elements = EMPTY;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public IntArrayList() {
+        // empty
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     * 
+     * @param value value to add
+     */
+    public void addInt(int value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+    }
+
+    /**
+     * Returns the value at the given position.
+     * 
+     * @param index position in the list
+     * @return value at the given position
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Returns a copy of the values in the list as an array.
+     * 
+     * @return copy of the values
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns a copy of this list backed by an array of exactly the list size.
+     * 
+     * @return copy of this list
+     */
+    IntArrayList trimmedCopy() {
+        IntArrayList copy = new IntArrayList();
+        copy.elements = toIntArray();
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        addInt(value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Integer value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        int v = value;
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = v;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Integer set(int index, Integer value) {
+        checkIndex(index);
+        int v = value;
+        int previous = elements[index];
+        elements[index] = v;
+        return previous;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        checkIndex(index);
+        int previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int newCapacity = Math.max(capacity, Math.max(10, elements.length + (elements.length >> 1)));
+            elements = Arrays.copyOf(elements, newCapacity);
+        }
+    }
+}
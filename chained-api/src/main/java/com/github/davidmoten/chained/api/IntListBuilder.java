@@ -0,0 +1,82 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * List builder used by generated code for {@code List<Integer>} fields. If the
+ * list is an {@link IntArrayList} then {@link #add(int)} stores the value
+ * without boxing, otherwise the value is boxed and added to the list.
+ * 
+ * @param <S> the type of the continuation object being returned by buildList
+ *            method
+ */
+public final class IntListBuilder<S> extends ListBuilder<Integer, S> {
+
+    private final List<Integer> list;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject provides the continuation object to be returned by
+     *                     buildList method
+     * @param list         the list to which elements are added
+     */
+    public IntListBuilder(Supplier<S> returnObject, List<Integer> list) {
+        super(returnObject, list);
+        this.list = list;
+    }
+
+    /**
+     * Adds a value to the list.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public IntListBuilder<S> add(int value) {
+        if (list instanceof IntArrayList) {
+            ((IntArrayList) list).addInt(value);
+        } else {
+            list.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values in the array to the list.
+     * 
+     * @param values values to add
+     * @return this
+     */
+    public IntListBuilder<S> addAll(int[] values) {
+        for (int v : values) {
+            add(v);
+        }
+        return this;
+    }
+
+    @Override
+    public IntListBuilder<S> add(Integer value) {
+        super.add(value);
+        return this;
+    }
+
+    @Override
+    public IntListBuilder<S> add(Integer... values) {
+        super.add(values);
+        return this;
+    }
+
+    @Override
+    public IntListBuilder<S> addAll(Collection<? extends Integer> values) {
+        super.addAll(values);
+        return this;
+    }
+
+    @Override
+    public IntListBuilder<S> set(Collection<? extends Integer> values) {
+        super.set(values);
+        return this;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Builder used by generated code for {@code Set<Integer>} fields. If the set is
+ * an {@link IntHashSet} then {@link #add(int)} stores the value without boxing,
+ * otherwise the value is boxed and added to the set.
+ * 
+ * @param <S> type of the object to be returned by buildList()
+ */
+public final class IntSetBuilder<S> extends SetBuilder<Integer, S> {
+
+    private final Set<Integer> set;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject supplier of the object to be returned by buildList()
+     * @param set          the set to which elements will be added
+     */
+    public IntSetBuilder(Supplier<S> returnObject, Set<Integer> set) {
+        super(returnObject, set);
+        this.set = set;
+    }
+
+    /**
+     * Adds a value to the set.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public IntSetBuilder<S> add(int value) {
+        if (set instanceof IntHashSet) {
+            ((IntHashSet) set).addInt(value);
+        } else {
+            set.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values in the array to the set.
+     * 
+     * @param values values to add
+     * @return this
+     */
+    public IntSetBuilder<S> addAll(int[] values) {
+        for (int v : values) {
+            add(v);
+        }
+        return this;
+    }
+
+    @Override
+    public IntSetBuilder<S> add(Integer value) {
+        super.add(value);
+        return this;
+    }
+
+    @Override
+    public IntSetBuilder<S> add(Integer... values) {
+        super.add(values);
+        return this;
+    }
+
+    @Override
+    public IntSetBuilder<S> addAll(Collection<? extends Integer> values) {
+        super.addAll(values);
+        return this;
+    }
+
+    @Override
+    public IntSetBuilder<S> set(Collection<? extends Integer> values) {
+        super.set(values);
+        return this;
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.davidmoten.chained.api;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe canonicalizing cache used by generated builders to return a
+ * single instance for equal values (as determined by {@code equals} and
+ * {@code hashCode}). The table is striped to reduce lock contention and holds
+ * its values weakly so a canonical instance is garbage collected once it is no
+ * longer referenced elsewhere.
+ *
+ * @param <T> value type
+ */
+public final class Interner<T> {
+
+    private static final ClassValue<Interner<?>> INTERNERS = new ClassValue<Interner<?>>() {
+        @Override
+        protected Interner<?> computeValue(Class<?> type) {
+            return new Interner<>();
+        }
+    };
+
+    // a power of two
+    private static final int STRIPES = 16;
+
+    private final Map<T, WeakReference<T>>[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor.
+     */
+    @SuppressWarnings("unchecked")
+    public Interner() {
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the interner shared by all generated code for the given type.
+     *
+     * @param <T>  value type
+     * @param type class of the values (the annotated type)
+     * @return shared interner for the type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Interner<T> forClass(Class<T> type) {
+        return (Interner<T>) INTERNERS.get(type);
+    }
+
+    /**
+     * Returns the canonical instance equal to the value, which is the value itself
+     * if no equal value is currently interned.
+     *
+     * @param value value to intern (not null)
+     * @return canonical instance
+     */
+    public T intern(T value) {
+        Map<T, WeakReference<T>> stripe = stripes[CompactHashing.hash(value) & (STRIPES - 1)];
+        synchronized (stripe) {
+            WeakReference<T> ref = stripe.get(value);
+            T canonical = ref == null ? null : ref.get();
+            if (canonical != null) {
+                hits.increment();
+                return canonical;
+            }
+            stripe.put(value, new WeakReference<>(value));
+        }
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Returns the number of calls to {@link #intern} that returned an existing
+     * instance.
+     *
+     * @return number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of calls to {@link #intern} that added the value as the
+     * canonical instance.
+     *
+     * @return number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of interned values that have not been garbage collected.
+     *
+     * @return number of interned values
+     */
+    public int size() {
+        int size = 0;
+        for (Map<T, WeakReference<T>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,507 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming (pull) JSON reader used by generated {@code *Json} classes.
+ * Values are read directly from a character buffer without building an
+ * intermediate tree. Malformed input causes an {@link IllegalArgumentException}
+ * that includes the character offset of the problem.
+ */
+public final class JsonReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+    // number of characters read before the start of the buffer
+    private long consumed;
+
+    // expectComma[d] is true if a value has been read at depth d so that the next
+    // element must be preceded by a comma
+    private boolean[] expectComma = new boolean[16];
+    private int depth;
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * Constructor that reads from a {@link Reader} (the reader is buffered
+     * internally).
+     * 
+     * @param reader source
+     */
+    public JsonReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Constructor that reads from a string.
+     * 
+     * @param json source
+     */
+    public JsonReader(String json) {
+        this.reader = null;
+        this.buffer = json.toCharArray();
+        this.limit = buffer.length;
+    }
+
+    /**
+     * Consumes the start of an object.
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    /**
+     * Consumes the end of an object.
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void endObject() throws IOException {
+        expect('}');
+        depth--;
+        afterValue();
+    }
+
+    /**
+     * Consumes the start of an array.
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    /**
+     * Consumes the end of an array.
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void endArray() throws IOException {
+        expect(']');
+        depth--;
+        afterValue();
+    }
+
+    /**
+     * Checks that nothing but whitespace follows the value that was read.
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void end() throws IOException {
+        if (peek() != -1) {
+            throw error("expected end of input", offset());
+        }
+    }
+
+    /**
+     * Returns true if the current object or array has another member or element
+     * (consuming the separating comma if present).
+     * 
+     * @return true if the current object or array has another element
+     * @throws IOException if thrown by the underlying reader
+     */
+    public boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (expectComma[depth]) {
+            expect(',');
+            expectComma[depth] = false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the name of an object member and the following colon.
+     * 
+     * @return member name
+     * @throws IOException if thrown by the underlying reader
+     */
+    public String nextName() throws IOException {
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Consumes a {@code null} value if it is next and returns true, otherwise
+     * returns false without consuming anything.
+     * 
+     * @return true if a null value was consumed
+     * @throws IOException if thrown by the underlying reader
+     */
+    public boolean nextNull() throws IOException {
+        if (peek() == 'n') {
+            literal("null");
+            afterValue();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a string value.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public String nextString() throws IOException {
+        String s = readString();
+        afterValue();
+        return s;
+    }
+
+    /**
+     * Reads a string value of length one.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public char nextChar() throws IOException {
+        long offset = offset();
+        String s = nextString();
+        if (s.length() != 1) {
+            throw error("expected string of length 1", offset);
+        }
+        return s.charAt(0);
+    }
+
+    /**
+     * Reads a boolean value.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public boolean nextBoolean() throws IOException {
+        int c = peek();
+        final boolean value;
+        if (c == 't') {
+            literal("true");
+            value = true;
+        } else if (c == 'f') {
+            literal("false");
+            value = false;
+        } else {
+            throw error("expected boolean", offset());
+        }
+        afterValue();
+        return value;
+    }
+
+    /**
+     * Reads an integral number value that fits in a {@code long}.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public long nextLong() throws IOException {
+        long offset = offset();
+        boolean negative = peek() == '-';
+        if (negative) {
+            pos++;
+        }
+        // accumulate negatively so that Long.MIN_VALUE can be represented
+        long limitValue = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyMin = limitValue / 10;
+        long value = 0;
+        int digits = 0;
+        while (true) {
+            int c = peekChar();
+            if (c < '0' || c > '9') {
+                break;
+            }
+            pos++;
+            int digit = c - '0';
+            if (value < multiplyMin) {
+                throw error("number too large", offset);
+            }
+            value *= 10;
+            if (value < limitValue + digit) {
+                throw error("number too large", offset);
+            }
+            value -= digit;
+            digits++;
+        }
+        int c = peekChar();
+        if (digits == 0 || c == '.' || c == 'e' || c == 'E') {
+            throw error("expected integer", offset);
+        }
+        afterValue();
+        return negative ? value : -value;
+    }
+
+    /**
+     * Reads an integral number value that fits in an {@code int}.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public int nextInt() throws IOException {
+        long offset = offset();
+        long value = nextLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("number out of range for int", offset);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads an integral number value that fits in a {@code short}.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public short nextShort() throws IOException {
+        long offset = offset();
+        long value = nextLong();
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+            throw error("number out of range for short", offset);
+        }
+        return (short) value;
+    }
+
+    /**
+     * Reads an integral number value that fits in a {@code byte}.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public byte nextByte() throws IOException {
+        long offset = offset();
+        long value = nextLong();
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw error("number out of range for byte", offset);
+        }
+        return (byte) value;
+    }
+
+    /**
+     * Reads a number value.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public double nextDouble() throws IOException {
+        long offset = offset();
+        String token = numberToken();
+        try {
+            double value = Double.parseDouble(token);
+            afterValue();
+            return value;
+        } catch (NumberFormatException e) {
+            throw error("expected number", offset);
+        }
+    }
+
+    /**
+     * Reads a number value as a {@code float}.
+     * 
+     * @return value
+     * @throws IOException if thrown by the underlying reader
+     */
+    public float nextFloat() throws IOException {
+        long offset = offset();
+        String token = numberToken();
+        try {
+            float value = Float.parseFloat(token);
+            afterValue();
+            return value;
+        } catch (NumberFormatException e) {
+            throw error("expected number", offset);
+        }
+    }
+
+    /**
+     * Skips the next value (including nested objects and arrays).
+     * 
+     * @throws IOException if thrown by the underlying reader
+     */
+    public void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else if (c == '"') {
+            nextString();
+        } else if (c == 't' || c == 'f') {
+            nextBoolean();
+        } else if (c == 'n') {
+            nextNull();
+        } else {
+            nextDouble();
+        }
+    }
+
+    private void push() {
+        depth++;
+        if (depth == expectComma.length) {
+            expectComma = Arrays.copyOf(expectComma, depth * 2);
+        }
+        expectComma[depth] = false;
+    }
+
+    private void afterValue() {
+        expectComma[depth] = true;
+    }
+
+    private String numberToken() throws IOException {
+        peek();
+        sb.setLength(0);
+        while (true) {
+            int c = peekChar();
+            if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) c);
+                pos++;
+            } else {
+                return sb.toString();
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        // fast path: no escapes and the closing quote is in the buffer
+        for (int i = pos; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                String s = new String(buffer, pos, i - pos);
+                pos = i + 1;
+                return s;
+            } else if (c == '\\') {
+                break;
+            }
+        }
+        sb.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw error("unterminated string", offset());
+            } else if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                sb.append(readEscaped());
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    private char readEscaped() throws IOException {
+        int c = read();
+        switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+            return (char) c;
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit == -1) {
+                    throw error("invalid unicode escape", offset());
+                }
+                value = (value << 4) + digit;
+            }
+            return (char) value;
+        default:
+            throw error("invalid escape", offset());
+        }
+    }
+
+    private void literal(String s) throws IOException {
+        long offset = offset();
+        for (int i = 0; i < s.length(); i++) {
+            if (read() != s.charAt(i)) {
+                throw error("expected " + s, offset);
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("expected '" + expected + "'", offset());
+        }
+        pos++;
+    }
+
+    // returns the next non-whitespace character without consuming it, or -1 at
+    // the end of input
+    private int peek() throws IOException {
+        while (true) {
+            int c = peekChar();
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peekChar() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        if (reader == null) {
+            return false;
+        }
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private long offset() {
+        return consumed + pos;
+    }
+
+    private static IllegalArgumentException error(String message, long offset) {
+        return new IllegalArgumentException("malformed JSON: " + message + " at offset " + offset);
+    }
+}
@@ -0,0 +1,268 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer used by generated {@code *Json} classes. Values
+ * are written straight to the underlying {@link Appendable} (commas and colons
+ * are inserted automatically). No whitespace is written.
+ */
+public final class JsonWriter {
+
+    private final Appendable out;
+
+    // hasValue[d] is true if a value has already been written at depth d
+    private boolean[] hasValue = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Constructor.
+     * 
+     * @param out destination
+     */
+    public JsonWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes the start of an object.
+     * 
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.append('{');
+        push();
+        return this;
+    }
+
+    /**
+     * Writes the end of an object.
+     * 
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        out.append('}');
+        return this;
+    }
+
+    /**
+     * Writes the start of an array.
+     * 
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.append('[');
+        push();
+        return this;
+    }
+
+    /**
+     * Writes the end of an array.
+     * 
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of an object member. Must be followed by a value.
+     * 
+     * @param name member name
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        out.append(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value (or {@code null}).
+     * 
+     * @param value value (may be null)
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    /**
+     * Writes a character as a string value of length one.
+     * 
+     * @param value value
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter value(char value) throws IOException {
+        return value(String.valueOf(value));
+    }
+
+    /**
+     * Writes a boolean value.
+     * 
+     * @param value value
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.append(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes an integral number value.
+     * 
+     * @param value value
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        if (out instanceof StringBuilder) {
+            // avoids creating an intermediate String
+            ((StringBuilder) out).append(value);
+        } else {
+            out.append(Long.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * Writes a floating point number value.
+     * 
+     * @param value value
+     * @return this
+     * @throws IOException              if thrown by the appendable
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    public JsonWriter value(double value) throws IOException {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("JSON numbers must be finite but was " + value);
+        }
+        beforeValue();
+        out.append(Double.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a floating point number value.
+     * 
+     * @param value value
+     * @return this
+     * @throws IOException              if thrown by the appendable
+     * @throws IllegalArgumentException if the value is NaN or infinite
+     */
+    public JsonWriter value(float value) throws IOException {
+        if (!Float.isFinite(value)) {
+            throw new IllegalArgumentException("JSON numbers must be finite but was " + value);
+        }
+        beforeValue();
+        out.append(Float.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes {@code null}.
+     * 
+     * @return this
+     * @throws IOException if thrown by the appendable
+     */
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.append("null");
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (hasValue[depth]) {
+            out.append(',');
+        } else {
+            hasValue[depth] = true;
+        }
+    }
+
+    private void push() {
+        depth++;
+        if (depth == hasValue.length) {
+            hasValue = Arrays.copyOf(hasValue, depth * 2);
+        }
+        hasValue[depth] = false;
+    }
+
+    private void writeString(String s) throws IOException {
+        out.append('"');
+        int start = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                // write the run of characters that need no escaping in one call
+                if (i > start) {
+                    out.append(s, start, i);
+                }
+                writeEscaped(c);
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            out.append(s, start, length);
+        }
+        out.append('"');
+    }
+
+    private void writeEscaped(char c) throws IOException {
+        switch (c) {
+        case '"':
+            out.append("\\\"");
+            break;
+        case '\\':
+            out.append("\\\\");
+            break;
+        case '\n':
+            out.append("\\n");
+            break;
+        case '\r':
+            out.append("\\r");
+            break;
+        case '\t':
+            out.append("\\t");
+            break;
+        case '\b':
+            out.append("\\b");
+            break;
+        case '\f':
+            out.append("\\f");
+            break;
+        default:
+            out.append("\\u00");
+            out.append(HEX[c >> 4]);
+            out.append(HEX[c & 0xF]);
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+}
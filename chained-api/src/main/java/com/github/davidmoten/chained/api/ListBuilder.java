@@ -5,13 +5,14 @@ import java.util.List;
 import java.util.function.Supplier;
 
 /**
- * List builder used by generated code.
+ * List builder used by generated code. Subclasses provide primitive overloads
+ * for boxed element types (for example {@link IntListBuilder}).
  * 
  * @param <T> list element type
  * @param <S> the type of the continuation object being returned by buildList
  *            method
  */
-public final class ListBuilder<T, S> {
+public class ListBuilder<T, S> {
 
     private final Supplier<S> returnObject;
     private final List<T> list;
@@ -28,6 +29,17 @@ public final class ListBuilder<T, S> {
         this.list = list;
     }
 
+    /**
+     * Adds a value to the list.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public ListBuilder<T, S> add(T value) {
+        list.add(value);
+        return this;
+    }
+
     /**
      * Adds values to the list.
      * 
@@ -0,0 +1,138 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Mutable {@code List<Long>} backed by a {@code long[]}, used by generated
+ * builders to accumulate elements without boxing. Null elements are not
+ * supported (a {@link NullPointerException} is thrown).
+ */
+public final class LongArrayList extends AbstractList<Long> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] elements = EMPTY;
+    private int size;
+
+    /**
+     * Constructor.
+     */
+    public LongArrayList() {
+        // empty
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     * 
+     * @param value value to add
+     */
+    public void addLong(long value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+        modCount++;
+    }
+
+    /**
+     * Returns the value at the given position.
+     * 
+     * @param index position in the list
+     * @return value at the given position
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Returns a copy of the values in the list as an array.
+     * 
+     * @return copy of the values
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Returns a copy of this list backed by an array of exactly the list size.
+     * 
+     * @return copy of this list
+     */
+    LongArrayList trimmedCopy() {
+        LongArrayList copy = new LongArrayList();
+        copy.elements = toLongArray();
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Long value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+        long v = value;
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = v;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        checkIndex(index);
+        long v = value;
+        long previous = elements[index];
+        elements[index] = v;
+        return previous;
+    }
+
+    @Override
+    public Long remove(int index) {
+        checkIndex(index);
+        long previous = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index=" + index + ", size=" + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int newCapacity = Math.max(capacity, Math.max(10, elements.length + (elements.length >> 1)));
+            elements = Arrays.copyOf(elements, newCapacity);
+        }
+    }
+}
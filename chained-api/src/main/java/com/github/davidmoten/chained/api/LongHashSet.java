@@ -0,0 +1,183 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Mutable {@code Set<Long>} backed by a {@code long[]} (in insertion order)
+ * and an open-addressing index, used by generated builders to accumulate
+ * elements without boxing. Null elements are not supported (a
+ * {@link NullPointerException} is thrown).
+ */
+public final class LongHashSet extends AbstractSet<Long> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] EMPTY = new long[0];
+
+    private long[] elements = EMPTY;
+    private int size;
+    private int[] table = CompactHashing.createTable(0);
+    private int modCount;
+
+    /**
+     * Constructor.
+     */
+    public LongHashSet() {
+        // empty
+    }
+
+    /**
+     * Adds a value to the set if not already present.
+     * 
+     * @param value value to add
+     * @return true if the set did not already contain the value
+     */
+    public boolean addLong(long value) {
+        if (indexOf(value) >= 0) {
+            return false;
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(10, size + (size >> 1)));
+        }
+        if ((size + 1) * 2 > table.length) {
+            table = CompactHashing.createTable(size + 1);
+            rebuildTable();
+        }
+        elements[size] = value;
+        CompactHashing.insert(table, hash(value), size);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Returns true if the set contains the value.
+     * 
+     * @param value value to look for
+     * @return true if the set contains the value
+     */
+    public boolean containsLong(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Removes the value from the set if present.
+     * 
+     * @param value value to remove
+     * @return true if the set contained the value
+     */
+    public boolean removeLong(long value) {
+        int index = indexOf(value);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public boolean add(Long value) {
+        return addLong(value);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && containsLong((Long) o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long && removeLong((Long) o);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        Arrays.fill(table, 0);
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+
+            int index;
+            int last = -1;
+            int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Long next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = index;
+                return elements[index++];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                index = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private static int hash(long value) {
+        return CompactHashing.spread(Long.hashCode(value));
+    }
+
+    private int indexOf(long value) {
+        int mask = table.length - 1;
+        int i = hash(value) & mask;
+        while (table[i] != 0) {
+            int index = table[i] - 1;
+            if (elements[index] == value) {
+                return index;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        // removal is rare for builders so keep insertion order by shifting and
+        // rebuilding the index
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        rebuildTable();
+        modCount++;
+    }
+
+    private void rebuildTable() {
+        Arrays.fill(table, 0);
+        for (int i = 0; i < size; i++) {
+            CompactHashing.insert(table, hash(elements[i]), i);
+        }
+    }
+}
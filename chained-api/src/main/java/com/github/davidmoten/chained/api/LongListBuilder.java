@@ -0,0 +1,82 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * List builder used by generated code for {@code List<Long>} fields. If the
+ * list is an {@link LongArrayList} then {@link #add(long)} stores the value
+ * without boxing, otherwise the value is boxed and added to the list.
+ * 
+ * @param <S> the type of the continuation object being returned by buildList
+ *            method
+ */
+public final class LongListBuilder<S> extends ListBuilder<Long, S> {
+
+    private final List<Long> list;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject provides the continuation object to be returned by
+     *                     buildList method
+     * @param list         the list to which elements are added
+     */
+    public LongListBuilder(Supplier<S> returnObject, List<Long> list) {
+        super(returnObject, list);
+        this.list = list;
+    }
+
+    /**
+     * Adds a value to the list.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public LongListBuilder<S> add(long value) {
+        if (list instanceof LongArrayList) {
+            ((LongArrayList) list).addLong(value);
+        } else {
+            list.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values in the array to the list.
+     * 
+     * @param values values to add
+     * @return this
+     */
+    public LongListBuilder<S> addAll(long[] values) {
+        for (long v : values) {
+            add(v);
+        }
+        return this;
+    }
+
+    @Override
+    public LongListBuilder<S> add(Long value) {
+        super.add(value);
+        return this;
+    }
+
+    @Override
+    public LongListBuilder<S> add(Long... values) {
+        super.add(values);
+        return this;
+    }
+
+    @Override
+    public LongListBuilder<S> addAll(Collection<? extends Long> values) {
+        super.addAll(values);
+        return this;
+    }
+
+    @Override
+    public LongListBuilder<S> set(Collection<? extends Long> values) {
+        super.set(values);
+        return this;
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Builder used by generated code for {@code Set<Long>} fields. If the set is
+ * a {@link LongHashSet} then {@link #add(long)} stores the value without boxing,
+ * otherwise the value is boxed and added to the set.
+ * 
+ * @param <S> type of the object to be returned by buildList()
+ */
+public final class LongSetBuilder<S> extends SetBuilder<Long, S> {
+
+    private final Set<Long> set;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject supplier of the object to be returned by buildList()
+     * @param set          the set to which elements will be added
+     */
+    public LongSetBuilder(Supplier<S> returnObject, Set<Long> set) {
+        super(returnObject, set);
+        this.set = set;
+    }
+
+    /**
+     * Adds a value to the set.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public LongSetBuilder<S> add(long value) {
+        if (set instanceof LongHashSet) {
+            ((LongHashSet) set).addLong(value);
+        } else {
+            set.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Adds all values in the array to the set.
+     * 
+     * @param values values to add
+     * @return this
+     */
+    public LongSetBuilder<S> addAll(long[] values) {
+        for (long v : values) {
+            add(v);
+        }
+        return this;
+    }
+
+    @Override
+    public LongSetBuilder<S> add(Long value) {
+        super.add(value);
+        return this;
+    }
+
+    @Override
+    public LongSetBuilder<S> add(Long... values) {
+        super.add(values);
+        return this;
+    }
+
+    @Override
+    public LongSetBuilder<S> addAll(Collection<? extends Long> values) {
+        super.addAll(values);
+        return this;
+    }
+
+    @Override
+    public LongSetBuilder<S> set(Collection<? extends Long> values) {
+        super.set(values);
+        return this;
+    }
+}
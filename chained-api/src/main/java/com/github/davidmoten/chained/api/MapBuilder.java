@@ -4,13 +4,14 @@ import java.util.Map;
 import java.util.function.Supplier;
 
 /**
- * Map builder used by generated code.
+ * Map builder used by generated code. Subclasses provide primitive overloads
+ * for boxed value types (for example {@link ObjIntMapBuilder}).
  * 
  * @param <K> key type
  * @param <V> value type
  * @param <T> return type of buildMap()
  */
-public final class MapBuilder<K, V, T> {
+public class MapBuilder<K, V, T> {
 
     private final Supplier<T> returnObject;
     private final Map<K, V> map;
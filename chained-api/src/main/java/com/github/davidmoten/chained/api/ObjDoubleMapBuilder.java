@@ -0,0 +1,62 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Map builder used by generated code for {@code Map<K, Double>} fields. If the
+ * map is an {@link ObjDoubleHashMap} then {@link #put(Object, double)} stores the
+ * value without boxing, otherwise the value is boxed and put in the map.
+ * 
+ * @param <K> key type
+ * @param <T> return type of buildMap()
+ */
+public final class ObjDoubleMapBuilder<K, T> extends MapBuilder<K, Double, T> {
+
+    private final Map<K, Double> map;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject supplier of object to return from buildMap()
+     * @param map          map to build
+     */
+    public ObjDoubleMapBuilder(Supplier<T> returnObject, Map<K, Double> map) {
+        super(returnObject, map);
+        this.map = map;
+    }
+
+    /**
+     * Adds a key/value pair to the map.
+     * 
+     * @param key   the key
+     * @param value the value
+     * @return this
+     */
+    public ObjDoubleMapBuilder<K, T> put(K key, double value) {
+        if (map instanceof ObjDoubleHashMap) {
+            ((ObjDoubleHashMap<K>) map).putDouble(key, value);
+        } else {
+            map.put(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public ObjDoubleMapBuilder<K, T> put(K key, Double value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public ObjDoubleMapBuilder<K, T> putAll(Map<? extends K, ? extends Double> m) {
+        super.putAll(m);
+        return this;
+    }
+
+    @Override
+    public ObjDoubleMapBuilder<K, T> set(Map<? extends K, ? extends Double> m) {
+        super.set(m);
+        return this;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Map builder used by generated code for {@code Map<K, Integer>} fields. If the
+ * map is an {@link ObjIntHashMap} then {@link #put(Object, int)} stores the
+ * value without boxing, otherwise the value is boxed and put in the map.
+ * 
+ * @param <K> key type
+ * @param <T> return type of buildMap()
+ */
+public final class ObjIntMapBuilder<K, T> extends MapBuilder<K, Integer, T> {
+
+    private final Map<K, Integer> map;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject supplier of object to return from buildMap()
+     * @param map          map to build
+     */
+    public ObjIntMapBuilder(Supplier<T> returnObject, Map<K, Integer> map) {
+        super(returnObject, map);
+        this.map = map;
+    }
+
+    /**
+     * Adds a key/value pair to the map.
+     * 
+     * @param key   the key
+     * @param value the value
+     * @return this
+     */
+    public ObjIntMapBuilder<K, T> put(K key, int value) {
+        if (map instanceof ObjIntHashMap) {
+            ((ObjIntHashMap<K>) map).putInt(key, value);
+        } else {
+            map.put(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public ObjIntMapBuilder<K, T> put(K key, Integer value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public ObjIntMapBuilder<K, T> putAll(Map<? extends K, ? extends Integer> m) {
+        super.putAll(m);
+        return this;
+    }
+
+    @Override
+    public ObjIntMapBuilder<K, T> set(Map<? extends K, ? extends Integer> m) {
+        super.set(m);
+        return this;
+    }
+}
@@ -0,0 +1,225 @@
+package com.github.davidmoten.chained.api;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Mutable {@code Map<K, Long>} that keeps its values in a {@code long[]}
+ * (keys and values in insertion order) plus an open-addressing index, used by
+ * generated builders to accumulate entries without boxing. Null keys are
+ * supported, null values are not (a {@link NullPointerException} is thrown).
+ * 
+ * @param <K> key type
+ */
+public final class ObjLongHashMap<K> extends AbstractMap<K, Long> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Object[] EMPTY_KEYS = new Object[0];
+    private static final long[] EMPTY_VALUES = new long[0];
+
+    private Object[] keys = EMPTY_KEYS;
+    private long[] values = EMPTY_VALUES;
+    private int size;
+    // rebuilt on deserialization because hash codes (of enums for example) may
+    // differ between JVMs
+    private transient int[] table = CompactHashing.createTable(0);
+    private transient int modCount;
+
+    /**
+     * Constructor.
+     */
+    public ObjLongHashMap() {
+        // empty
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     * 
+     * @param key   the key
+     * @param value the value
+     */
+    public void putLong(K key, long value) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            values[index] = value;
+            return;
+        }
+        if (size == keys.length) {
+            int capacity = Math.max(10, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        if ((size + 1) * 2 > table.length) {
+            table = CompactHashing.createTable(size + 1);
+            rebuildTable();
+        }
+        keys[size] = key;
+        values[size] = value;
+        CompactHashing.insert(table, CompactHashing.hash(key), size);
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Returns the value associated with the key or {@code defaultValue} if the
+     * key is not present.
+     * 
+     * @param key          the key
+     * @param defaultValue value to return if the key is not present
+     * @return the value associated with the key or the default value
+     */
+    public long getLong(Object key, long defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    @Override
+    public Long put(K key, Long value) {
+        long v = value;
+        int index = indexOf(key);
+        if (index >= 0) {
+            long previous = values[index];
+            values[index] = v;
+            return previous;
+        } else {
+            putLong(key, v);
+            return null;
+        }
+    }
+
+    @Override
+    public Long get(Object key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Long remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        long previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+        Arrays.fill(table, 0);
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, Long>> entrySet() {
+        return new AbstractSet<Entry<K, Long>>() {
+
+            @Override
+            public Iterator<Entry<K, Long>> iterator() {
+                return new Iterator<Entry<K, Long>>() {
+
+                    int index;
+                    int last = -1;
+                    int expectedModCount = modCount;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @SuppressWarnings("unchecked")
+                    @Override
+                    public Entry<K, Long> next() {
+                        if (expectedModCount != modCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        last = index;
+                        index++;
+                        return new SimpleImmutableEntry<>((K) keys[last], values[last]);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+                        if (expectedModCount != modCount) {
+                            throw new ConcurrentModificationException();
+                        }
+                        removeAt(last);
+                        index = last;
+                        last = -1;
+                        expectedModCount = modCount;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        int mask = table.length - 1;
+        int i = CompactHashing.hash(key) & mask;
+        while (table[i] != 0) {
+            int index = table[i] - 1;
+            if (Objects.equals(keys[index], key)) {
+                return index;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        // removal is rare for builders so keep insertion order by shifting and
+        // rebuilding the index
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        keys[size] = null;
+        rebuildTable();
+        modCount++;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        table = CompactHashing.createTable(size);
+        rebuildTable();
+    }
+
+    private void rebuildTable() {
+        Arrays.fill(table, 0);
+        for (int i = 0; i < size; i++) {
+            CompactHashing.insert(table, CompactHashing.hash(keys[i]), i);
+        }
+    }
+}
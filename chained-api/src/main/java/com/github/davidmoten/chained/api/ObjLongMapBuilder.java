@@ -0,0 +1,62 @@
+package com.github.davidmoten.chained.api;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Map builder used by generated code for {@code Map<K, Long>} fields. If the
+ * map is an {@link ObjLongHashMap} then {@link #put(Object, long)} stores the
+ * value without boxing, otherwise the value is boxed and put in the map.
+ * 
+ * @param <K> key type
+ * @param <T> return type of buildMap()
+ */
+public final class ObjLongMapBuilder<K, T> extends MapBuilder<K, Long, T> {
+
+    private final Map<K, Long> map;
+
+    /**
+     * Constructor.
+     * 
+     * @param returnObject supplier of object to return from buildMap()
+     * @param map          map to build
+     */
+    public ObjLongMapBuilder(Supplier<T> returnObject, Map<K, Long> map) {
+        super(returnObject, map);
+        this.map = map;
+    }
+
+    /**
+     * Adds a key/value pair to the map.
+     * 
+     * @param key   the key
+     * @param value the value
+     * @return this
+     */
+    public ObjLongMapBuilder<K, T> put(K key, long value) {
+        if (map instanceof ObjLongHashMap) {
+            ((ObjLongHashMap<K>) map).putLong(key, value);
+        } else {
+            map.put(key, value);
+        }
+        return this;
+    }
+
+    @Override
+    public ObjLongMapBuilder<K, T> put(K key, Long value) {
+        super.put(key, value);
+        return this;
+    }
+
+    @Override
+    public ObjLongMapBuilder<K, T> putAll(Map<? extends K, ? extends Long> m) {
+        super.putAll(m);
+        return this;
+    }
+
+    @Override
+    public ObjLongMapBuilder<K, T> set(Map<? extends K, ? extends Long> m) {
+        super.set(m);
+        return this;
+    }
+}
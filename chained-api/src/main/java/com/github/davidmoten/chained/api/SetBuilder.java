@@ -5,12 +5,13 @@ import java.util.Set;
 import java.util.function.Supplier;
 
 /**
- * Builder for sets.
+ * Builder for sets. Subclasses provide primitive overloads for boxed element
+ * types (for example {@link IntSetBuilder}).
  * 
  * @param <T> type of elements in the set
  * @param <S> type of the object to be returned by buildList()
  */
-public final class SetBuilder<T, S> {
+public class SetBuilder<T, S> {
 
     private final Supplier<S> returnObject;
     private final Set<T> set;
@@ -26,6 +27,17 @@ public final class SetBuilder<T, S> {
         this.set = set;
     }
 
+    /**
+     * Adds a value to the set.
+     * 
+     * @param value value to add
+     * @return this
+     */
+    public SetBuilder<T, S> add(T value) {
+        set.add(value);
+        return this;
+    }
+
     /**
      * Adds values to the set.
      * 
@@ -46,10 +46,199 @@ public @interface Builder {
 
     /**
      * If true then the generated builder will have a static `copy` method that
-     * returns a builder that is initiated with the fields of the given object.
+     * returns a builder that is initiated with the fields of the given object, and
+     * static {@code withX(value, x)} methods that return a copy of the object with
+     * one field changed. Has no effect on interfaces (the generated implementation
+     * always has {@code withX(x)} methods).
      * 
      * @return true if the generated builder should have a static `copy` method
      */
     boolean copy() default true;
 
+    /**
+     * Determines how the stages of the generated builder for mandatory parameters
+     * are implemented. {@link Stages#SINGLE_INSTANCE} avoids creating a wrapper
+     * object per mandatory parameter.
+     * 
+     * @return the stages implementation
+     */
+    Stages stages() default Stages.WRAPPERS;
+
+    /**
+     * If true then collections ({@code List}, {@code Set}, {@code Map} and their
+     * supported implementations) passed to builder setters are adopted by the
+     * builder without copying their elements. The caller transfers ownership of
+     * the collection to the builder and should not modify it afterwards. The built
+     * object still only exposes an unmodifiable view of the collection. A
+     * transferred collection is copied before elements are added to it with a
+     * collection builder method (like {@code list().add(...)}), so it is never
+     * modified by the builder and may be immutable. If false
+     * (the default) the elements are copied into a collection owned by the
+     * builder.
+     * 
+     * @return true if collections passed to setters are adopted without copying
+     */
+    boolean transferCollections() default false;
+
+    /**
+     * If true then fields declared as {@code List}, {@code Set} or {@code Map} are
+     * passed to the constructor as compact immutable copies (backed by arrays of
+     * exactly the required size) rather than as unmodifiable views of the
+     * builder's collections. Iteration order is preserved and the copies are
+     * serializable. If false (the default) unmodifiable views are used.
+     *
+     * @return true if compact immutable copies of collections are built
+     */
+    boolean compactCollections() default false;
+
+    /**
+     * If true then the collection builders (for example {@code numbers().add(3)})
+     * of {@code List} and {@code Set} fields with {@code Integer} or {@code Long}
+     * elements (and {@code List} fields with {@code Double} elements) and of
+     * {@code Map} fields with {@code Integer}, {@code Long} or {@code Double}
+     * values accumulate the elements in collections backed by primitive arrays so
+     * that adding an element does not box it. These collections do not accept
+     * {@code null} elements or values. If false (the default) the boxed JDK
+     * collections are used.
+     *
+     * @return true if primitive backed collections are used by collection builders
+     */
+    boolean primitiveCollections() default false;
+
+    /**
+     * If true then the generated implementation of an annotated interface caches
+     * its hash code in a field after the first call to {@code hashCode()}. Only
+     * use this when the values of all fields are themselves immutable. Has no
+     * effect on records and classes.
+     *
+     * @return true if the implementation caches its hash code
+     */
+    boolean cacheHashCode() default false;
+
+    /**
+     * If true then the generated implementation of an annotated interface caches
+     * the result of {@code toString()} in a field after the first call. Only use
+     * this when the values of all fields are themselves immutable. Has no effect
+     * on records and classes.
+     *
+     * @return true if the implementation caches its string representation
+     */
+    boolean cacheToString() default false;
+
+    /**
+     * The maximum number of elements of each collection or map field written by
+     * {@code toString()} (and {@code appendTo}) of the generated implementation of
+     * an annotated interface. Further elements are summarized as
+     * {@code ...(N more)}. Must be at least 1. Has no effect on records and
+     * classes.
+     *
+     * @return maximum number of collection elements written by toString
+     */
+    int toStringMaxElements() default Integer.MAX_VALUE;
+
+    /**
+     * If true then the generated builder has a {@code reset()} method and a static
+     * {@code reusable()} method that returns a (reset) builder owned by the
+     * current thread, so that building many objects does not allocate a builder
+     * per object. Implies {@link Stages#SINGLE_INSTANCE} stages. Fields declared
+     * as {@code List}, {@code Set} or {@code Map} are copied (as with
+     * {@link #compactCollections()}) by {@code build()} so that the builder can
+     * clear and reuse its collections.
+     *
+     * @return true if a reusable builder is generated
+     */
+    boolean reusable() default false;
+
+    /**
+     * If true then a class <code>${pkg}.builder.${simpleName}Codec</code> (in the
+     * same package as the generated builder) is generated with static methods
+     * {@code write(value, ByteBuffer)} and {@code read(ByteBuffer)} that write and
+     * read the fields of the annotated type in a compact binary format without
+     * using reflection. Primitives are written raw, strings as length prefixed
+     * UTF-8 and {@code List}, {@code Set} and {@code Map} fields with a count
+     * prefix. Supported field types are primitives, their boxed types,
+     * {@code String} and {@code Optional}, {@code List}, {@code Set} and
+     * {@code Map} of those.
+     *
+     * @return true if a codec class is generated
+     */
+    boolean codec() default false;
+
+    /**
+     * If true then a class <code>${pkg}.builder.${simpleName}Json</code> (in the
+     * same package as the generated builder) is generated with static methods
+     * that write the annotated type as JSON to an {@code Appendable} or
+     * {@code OutputStream} and read it with a streaming parser (no intermediate
+     * tree and no reflection). Field names are the property names. Supported
+     * field types are primitives, their boxed types, {@code String} and
+     * {@code Optional}, {@code List}, {@code Set} and {@code Map} (with
+     * {@code String} keys) of those.
+     *
+     * @return true if a JSON class is generated
+     */
+    boolean json() default false;
+
+    /**
+     * Determines when the {@link Check} method of an annotated interface is called
+     * by the generated implementation (see {@link Validation}). Has no effect on
+     * records and classes.
+     *
+     * @return the validation mode
+     */
+    Validation validation() default Validation.EAGER;
+
+    /**
+     * If true then the generated builder has a {@code buildUnchecked()} method
+     * next to each {@code build()} method that passes the fields to the
+     * constructor as is (collections are not wrapped in unmodifiable views or
+     * copied). For an annotated interface it calls the static
+     * {@code createTrusted} method of the generated implementation, which skips
+     * the null checks and the {@link Check} method unless assertions are enabled.
+     * Only use for values that are already known to be valid.
+     *
+     * @return true if the unchecked build methods are generated
+     */
+    boolean trusted() default false;
+
+    /**
+     * If true then a class <code>${pkg}.builder.${simpleName}BatchBuilder</code>
+     * (in the same package as the generated builder) is generated that builds
+     * many objects in one call from columns of field values (a primitive array
+     * for a primitive field, otherwise a {@code List}). The objects are created
+     * in a loop without per object builders, optionally in parallel. Columns are
+     * not copied and must not be changed until the objects are built.
+     *
+     * @return true if a batch builder class is generated
+     */
+    boolean batch() default false;
+
+    /**
+     * If true (only supported on interfaces) then a class
+     * <code>${pkg}.builder.${simpleName}Flyweight</code> (in the same package as
+     * the generated builder) is generated that implements the interface by
+     * reading the fields of a record in a {@code ByteBuffer} (for example a direct
+     * or memory mapped buffer) at fixed offsets. Strings are stored after the
+     * fixed length part of the record and located with a table of end offsets.
+     * The class has a static {@code append} method that writes a value as a
+     * record. Supported field types are primitives, their boxed types,
+     * {@code String} and {@code Optional} of those.
+     *
+     * @return true if a flyweight class is generated
+     */
+    boolean flyweight() default false;
+
+    /**
+     * If true then objects built by the generated code (builders, companion
+     * classes and the {@code create} methods of the generated implementation of
+     * an interface) are interned: when an equal object (by {@code equals} and
+     * {@code hashCode}) has already been built and is still referenced then that
+     * instance is returned instead. The shared interner (with hit and miss
+     * counts) is returned by {@code Interner.forClass(AnnotatedType.class)}. Only
+     * use this for immutable types that are built repeatedly with the same
+     * values.
+     *
+     * @return true if built objects are interned
+     */
+    boolean intern() default false;
+
 }
@@ -0,0 +1,26 @@
+package com.github.davidmoten.chained.api.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the result of a {@code default} method (without parameters)
+ * of an interface annotated with {@link Builder} is computed at most once per
+ * instance (on first call) and cached by the generated implementation. The
+ * method should only depend on the values of the fields of the interface.
+ *
+ * <p>
+ * Primitive results are cached with the single-check idiom (the method may be
+ * called more than once when first called concurrently) and object results with
+ * double-checked locking on a private lock. A {@code null} result is cached
+ * like any other.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(value = { ElementType.METHOD })
+@Documented
+public @interface Memoized {
+
+}
@@ -0,0 +1,20 @@
+package com.github.davidmoten.chained.api.annotation;
+
+/**
+ * Determines how the stages of a generated chained builder are implemented.
+ */
+public enum Stages {
+
+    /**
+     * Each stage is a wrapper class around the builder so one short-lived object
+     * is created per mandatory parameter.
+     */
+    WRAPPERS,
+
+    /**
+     * Each stage is an interface implemented by the builder itself so a single
+     * builder object is created per build. The order in which mandatory
+     * parameters must be set is still enforced at compile time.
+     */
+    SINGLE_INSTANCE
+}
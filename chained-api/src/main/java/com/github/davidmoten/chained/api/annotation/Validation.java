@@ -0,0 +1,33 @@
+package com.github.davidmoten.chained.api.annotation;
+
+/**
+ * Determines when the {@link Check} method of an annotated interface is called
+ * by the generated implementation. The setting can be overridden at runtime
+ * with the system property {@code chained.validation} (for all types) or
+ * {@code chained.validation.<interface class name>} (for one type). The
+ * override can only choose a mode supported by the generated code:
+ * {@link #DEFERRED} needs code generated for {@code DEFERRED}, so for other
+ * types it has the same effect as {@link #EAGER}.
+ */
+public enum Validation {
+
+    /**
+     * The check is called once when the object is created.
+     */
+    EAGER,
+
+    /**
+     * The check is called on the first call to an accessor of the object or to
+     * the {@code validate()} method of the generated implementation. Invalid
+     * objects can be created and passed around until they are read. The check
+     * is called by one thread at a time and no accessor returns a value until
+     * the check has passed, so the check is called once for a valid object.
+     */
+    DEFERRED,
+
+    /**
+     * The check is not called. Use for trusted pipelines where the values are
+     * known to be valid.
+     */
+    OFF
+}
@@ -0,0 +1,220 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+public class JsonReaderTest {
+
+    @Test
+    public void testReadObject() throws IOException {
+        JsonReader r = new JsonReader(" { \"a\" : 1 , \"b\" : [true, false, null] , \"c\" : \"x\" } ");
+        r.beginObject();
+        assertTrue(r.hasNext());
+        assertEquals("a", r.nextName());
+        assertEquals(1, r.nextInt());
+        assertTrue(r.hasNext());
+        assertEquals("b", r.nextName());
+        r.beginArray();
+        assertTrue(r.hasNext());
+        assertTrue(r.nextBoolean());
+        assertTrue(r.hasNext());
+        assertFalse(r.nextBoolean());
+        assertTrue(r.hasNext());
+        assertTrue(r.nextNull());
+        assertFalse(r.hasNext());
+        r.endArray();
+        assertTrue(r.hasNext());
+        assertEquals("c", r.nextName());
+        assertFalse(r.nextNull());
+        assertEquals("x", r.nextString());
+        assertFalse(r.hasNext());
+        r.endObject();
+        r.end();
+    }
+
+    @Test
+    public void testEndRejectsTrailingContent() throws IOException {
+        JsonReader r = new JsonReader("{} {}");
+        r.beginObject();
+        r.endObject();
+        assertThrows(IllegalArgumentException.class, r::end);
+    }
+
+    @Test
+    public void testMissingComma() throws IOException {
+        JsonReader r = new JsonReader("[1 2]");
+        r.beginArray();
+        assertTrue(r.hasNext());
+        r.nextInt();
+        assertThrows(IllegalArgumentException.class, r::hasNext);
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        JsonReader r = new JsonReader("\"a\\\"b\\\\c\\/d\\n\\r\\t\\b\\f\\u0041\\u00e9\\uD83D\\uDE00\"");
+        assertEquals("a\"b\\c/d\n\r\t\b\fA\u00e9\ud83d\ude00", r.nextString());
+    }
+
+    @Test
+    public void testInvalidEscapes() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("\"\\x\"").nextString());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("\"\\u00g0\"").nextString());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("\"\\u00").nextString());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("\"abc").nextString());
+    }
+
+    @Test
+    public void testNextChar() throws IOException {
+        assertEquals('z', new JsonReader("\"z\"").nextChar());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("\"zz\"").nextChar());
+    }
+
+    @Test
+    public void testLongLimits() throws IOException {
+        assertEquals(Long.MIN_VALUE, new JsonReader("-9223372036854775808").nextLong());
+        assertEquals(Long.MAX_VALUE, new JsonReader("9223372036854775807").nextLong());
+        assertEquals(0, new JsonReader("-0").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("9223372036854775808").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("-9223372036854775809").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("99999999999999999999").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("-").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("1.5").nextLong());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("1e3").nextLong());
+    }
+
+    @Test
+    public void testNarrowIntegralRanges() throws IOException {
+        assertEquals(Integer.MIN_VALUE, new JsonReader("-2147483648").nextInt());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("2147483648").nextInt());
+        assertEquals(Short.MAX_VALUE, new JsonReader("32767").nextShort());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("-32769").nextShort());
+        assertEquals(Byte.MIN_VALUE, new JsonReader("-128").nextByte());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("128").nextByte());
+    }
+
+    @Test
+    public void testFloatingPoint() throws IOException {
+        assertEquals(-2.5e-3, new JsonReader("-2.5e-3").nextDouble());
+        assertEquals(1.5f, new JsonReader("1.5").nextFloat());
+        assertEquals(100.0, new JsonReader("1E+2").nextDouble());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("1.2.3").nextDouble());
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader("abc").nextDouble());
+    }
+
+    @Test
+    public void testSkipNestedValues() throws IOException {
+        JsonReader r = new JsonReader(
+                "[{\"a\":{\"b\":[1,[2,{\"c\":null}],\"]}\"]},\"d\":true}, -1.5e2, \"s\", false, null, 7]");
+        r.beginArray();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(r.hasNext());
+            r.skipValue();
+        }
+        assertTrue(r.hasNext());
+        assertTrue(r.nextNull());
+        assertTrue(r.hasNext());
+        assertEquals(7, r.nextInt());
+        assertFalse(r.hasNext());
+        r.endArray();
+        r.end();
+    }
+
+    @Test
+    public void testDeepNesting() throws IOException {
+        int depth = 100;
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            s.append('[');
+        }
+        for (int i = 0; i < depth; i++) {
+            s.append(']');
+        }
+        JsonReader r = new JsonReader(s.toString());
+        r.skipValue();
+        r.end();
+    }
+
+    @Test
+    public void testReaderRefillAcrossBufferBoundary() throws IOException {
+        // strings and numbers that span the 8192 character buffer of the reader
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            s.append((char) ('a' + i % 26));
+        }
+        String plain = s.toString();
+        String escaped = plain.substring(0, 5000) + "\\u00e9\\n" + plain.substring(5000);
+        StringBuilder json = new StringBuilder("[");
+        // pad so that the number straddles the first buffer boundary
+        for (int i = 0; i < 8180; i++) {
+            json.append(' ');
+        }
+        json.append("-9223372036854775808, 123.456e1, \"").append(plain).append("\", \"").append(escaped)
+                .append("\"]");
+        for (int chunk : new int[] { 1, 7, 8192, 100000 }) {
+            JsonReader r = new JsonReader(new ChunkedReader(json.toString(), chunk));
+            r.beginArray();
+            assertTrue(r.hasNext());
+            assertEquals(Long.MIN_VALUE, r.nextLong());
+            assertTrue(r.hasNext());
+            assertEquals(1234.56, r.nextDouble());
+            assertTrue(r.hasNext());
+            assertEquals(plain, r.nextString());
+            assertTrue(r.hasNext());
+            assertEquals(plain.substring(0, 5000) + "\u00e9\n" + plain.substring(5000), r.nextString());
+            assertFalse(r.hasNext());
+            r.endArray();
+            r.end();
+        }
+    }
+
+    @Test
+    public void testErrorReportsOffsetAcrossBuffers() throws IOException {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 9000; i++) {
+            json.append(' ');
+        }
+        json.append('x');
+        JsonReader r = new JsonReader(new StringReader(json.toString()));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, r::beginObject);
+        assertTrue(e.getMessage().endsWith("at offset 9000"), e.getMessage());
+    }
+
+    /**
+     * Returns at most {@code chunk} characters per read to exercise refills.
+     */
+    private static final class ChunkedReader extends Reader {
+
+        private final String s;
+        private final int chunk;
+        private int index;
+
+        ChunkedReader(String s, int chunk) {
+            this.s = s;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (index == s.length()) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, chunk), s.length() - index);
+            s.getChars(index, index + n, cbuf, off);
+            index += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+public class JsonWriterTest {
+
+    @Test
+    public void testWriteNested() throws IOException {
+        StringBuilder b = new StringBuilder();
+        new JsonWriter(b) //
+                .beginObject() //
+                .name("a").value(Long.MIN_VALUE) //
+                .name("b").beginArray().value(true).nullValue().value(1.5).value(2.5f).value('c').endArray() //
+                .name("c").beginObject().endObject() //
+                .name("d").value((String) null) //
+                .endObject();
+        assertEquals("{\"a\":-9223372036854775808,\"b\":[true,null,1.5,2.5,\"c\"],\"c\":{},\"d\":null}",
+                b.toString());
+    }
+
+    @Test
+    public void testEscapes() throws IOException {
+        // not a StringBuilder so the Appendable path is used
+        StringWriter w = new StringWriter();
+        new JsonWriter(w).value("a\"b\\c\n\r\t\b\f\u0001\u001f/\u00e9");
+        assertEquals("\"a\\\"b\\\\c\\n\\r\\t\\b\\f\\u0001\\u001f/\u00e9\"", w.toString());
+    }
+
+    @Test
+    public void testRoundTripWithReader() throws IOException {
+        StringBuilder b = new StringBuilder();
+        String s = "x\u0000y\"\\\ud83d\ude00";
+        new JsonWriter(b).beginArray().value(s).value(Long.MAX_VALUE).value(-0.0).endArray();
+        JsonReader r = new JsonReader(b.toString());
+        r.beginArray();
+        r.hasNext();
+        assertEquals(s, r.nextString());
+        r.hasNext();
+        assertEquals(Long.MAX_VALUE, r.nextLong());
+        r.hasNext();
+        assertEquals(-0.0, r.nextDouble());
+        r.endArray();
+        r.end();
+    }
+
+    @Test
+    public void testNonFiniteNumbersRejected() {
+        JsonWriter w = new JsonWriter(new StringBuilder());
+        assertThrows(IllegalArgumentException.class, () -> w.value(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> w.value(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> w.value(Float.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    public void testDeepNesting() throws IOException {
+        StringBuilder b = new StringBuilder();
+        JsonWriter w = new JsonWriter(b);
+        for (int i = 0; i < 40; i++) {
+            w.beginArray().value(i);
+        }
+        for (int i = 0; i < 40; i++) {
+            w.endArray();
+        }
+        JsonReader r = new JsonReader(b.toString());
+        for (int i = 0; i < 40; i++) {
+            r.beginArray();
+            r.hasNext();
+            assertEquals(i, r.nextInt());
+            r.hasNext();
+        }
+        for (int i = 0; i < 40; i++) {
+            r.endArray();
+        }
+        r.end();
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ObjHashMapTest {
+
+    @Test
+    public void testObjIntHashMapGrowsPastManyRehashes() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.putInt("k" + i, i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.getInt("k" + i, -1));
+        }
+        assertEquals(-1, map.getInt("k1000", -1));
+        assertNull(map.get("k1000"));
+    }
+
+    @Test
+    public void testObjIntHashMapMatchesLinkedHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(1);
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                int value = random.nextInt();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        // removal shifts rather than leaving tombstones so insertion order holds
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        for (int i = 0; i < 200; i++) {
+            assertEquals(expected.containsKey("k" + i), map.containsKey("k" + i));
+        }
+    }
+
+    @Test
+    public void testObjIntHashMapRemoveWithCollidingKeys() {
+        ObjIntHashMap<Colliding> map = new ObjIntHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.putInt(new Colliding(i), i);
+        }
+        // removing from the start of a probe sequence must not hide later keys
+        assertEquals(0, (int) map.remove(new Colliding(0)));
+        assertNull(map.remove(new Colliding(0)));
+        assertEquals(10, (int) map.remove(new Colliding(10)));
+        for (int i = 1; i < 20; i++) {
+            assertEquals(i == 10 ? -1 : i, map.getInt(new Colliding(i), -1));
+        }
+        map.putInt(new Colliding(0), 100);
+        assertEquals(19, map.size());
+        assertEquals(100, map.getInt(new Colliding(0), -1));
+    }
+
+    @Test
+    public void testObjIntHashMapNullKey() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        map.putInt(null, 1);
+        map.putInt("a", 2);
+        assertTrue(map.containsKey(null));
+        assertEquals(1, (int) map.get(null));
+        assertEquals(1, (int) map.remove(null));
+        assertFalse(map.containsKey(null));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testObjIntHashMapRejectsNullValue() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        map.putInt("a", 1);
+        assertThrows(NullPointerException.class, () -> map.put("a", null));
+        assertThrows(NullPointerException.class, () -> map.put("b", null));
+        assertEquals(1, map.size());
+        assertEquals(1, (int) map.get("a"));
+        assertFalse(map.containsKey("b"));
+    }
+
+    @Test
+    public void testObjIntHashMapEqualsAndHashCodeMatchHashMap() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            map.putInt("k" + i, i);
+            expected.put("k" + i, i);
+        }
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        expected.put("k0", 1);
+        assertFalse(map.equals(expected));
+    }
+
+    @Test
+    public void testObjIntHashMapEntryIteratorRemove() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.putInt("k" + i, i);
+        }
+        Iterator<Entry<String, Integer>> it = map.entrySet().iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        while (it.hasNext()) {
+            if (it.next().getValue() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(10, map.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 2 == 1, map.containsKey("k" + i));
+        }
+        map.keySet().remove("k1");
+        assertFalse(map.containsKey("k1"));
+    }
+
+    @Test
+    public void testObjIntHashMapIteratorFailsFast() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        map.putInt("a", 1);
+        map.putInt("b", 2);
+        Iterator<Entry<String, Integer>> it = map.entrySet().iterator();
+        it.next();
+        map.putInt("c", 3);
+        assertThrows(ConcurrentModificationException.class, it::next);
+        assertThrows(ConcurrentModificationException.class, it::remove);
+    }
+
+    @Test
+    public void testObjIntHashMapClear() {
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            map.putInt("k" + i, i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey("k1"));
+        map.putInt("k1", 5);
+        assertEquals(5, map.getInt("k1", -1));
+    }
+
+    @Test
+    public void testObjLongHashMapMatchesLinkedHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(2);
+        ObjLongHashMap<Integer> map = new ObjLongHashMap<>();
+        Map<Integer, Long> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            Integer key = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                long value = random.nextLong();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testObjLongHashMapRejectsNullValueAndIteratorRemove() {
+        ObjLongHashMap<String> map = new ObjLongHashMap<>();
+        map.putLong("a", 1);
+        map.putLong("b", Long.MAX_VALUE);
+        assertThrows(NullPointerException.class, () -> map.put("c", null));
+        assertEquals(Long.MAX_VALUE, map.getLong("b", 0));
+        Iterator<Entry<String, Long>> it = map.entrySet().iterator();
+        it.next();
+        it.remove();
+        assertEquals(Arrays.asList("b"), new ArrayList<>(map.keySet()));
+    }
+
+    @Test
+    public void testObjDoubleHashMapMatchesLinkedHashMapUnderRandomPutsAndRemoves() {
+        Random random = new Random(3);
+        ObjDoubleHashMap<Integer> map = new ObjDoubleHashMap<>();
+        Map<Integer, Double> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            Integer key = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                double value = random.nextDouble();
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+        }
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testObjDoubleHashMapRejectsNullValueAndIteratorRemove() {
+        ObjDoubleHashMap<String> map = new ObjDoubleHashMap<>();
+        map.putDouble("a", 1.5);
+        map.putDouble("b", Double.NaN);
+        assertThrows(NullPointerException.class, () -> map.put("c", null));
+        assertEquals(Double.NaN, map.getDouble("b", 0));
+        Iterator<Entry<String, Double>> it = map.entrySet().iterator();
+        it.next();
+        it.remove();
+        assertEquals(Arrays.asList("b"), new ArrayList<>(map.keySet()));
+    }
+
+    private static final class Colliding {
+
+        private final int value;
+
+        Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).value == value;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveArrayListTest {
+
+    @Test
+    public void testIntArrayListGrows() {
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 1000; i++) {
+            list.addInt(i);
+        }
+        assertEquals(1000, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, list.getInt(i));
+        }
+        assertEquals(1000, list.toIntArray().length);
+    }
+
+    @Test
+    public void testIntArrayListMatchesArrayListUnderRandomOperations() {
+        Random random = new Random(1);
+        IntArrayList list = new IntArrayList();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(4);
+            int value = random.nextInt();
+            if (op == 0 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else if (op == 1) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, value);
+                list.add(index, value);
+            } else if (op == 2 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, value), list.set(index, value));
+            } else {
+                expected.add(value);
+                list.addInt(value);
+            }
+        }
+        assertEquals(expected, list);
+        assertEquals(list, expected);
+        assertEquals(expected.hashCode(), list.hashCode());
+    }
+
+    @Test
+    public void testIntArrayListIteratorRemove() {
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 10; i++) {
+            list.addInt(i);
+        }
+        Iterator<Integer> it = list.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), list);
+        ListIterator<Integer> li = list.listIterator();
+        li.next();
+        li.set(100);
+        assertEquals(100, list.getInt(0));
+    }
+
+    @Test
+    public void testIntArrayListIteratorFailsFast() {
+        IntArrayList list = new IntArrayList();
+        list.addInt(1);
+        list.addInt(2);
+        Iterator<Integer> it = list.iterator();
+        it.next();
+        list.addInt(3);
+        assertThrows(ConcurrentModificationException.class, it::next);
+    }
+
+    @Test
+    public void testIntArrayListRejectsNullAndBadIndexes() {
+        IntArrayList list = new IntArrayList();
+        list.addInt(1);
+        assertThrows(NullPointerException.class, () -> list.add(null));
+        assertThrows(NullPointerException.class, () -> list.add(0, null));
+        assertThrows(NullPointerException.class, () -> list.set(0, null));
+        assertEquals(Arrays.asList(1), list);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getInt(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getInt(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.add(2, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.remove(1));
+    }
+
+    @Test
+    public void testIntArrayListTrimmedCopyIsIndependent() {
+        IntArrayList list = new IntArrayList();
+        list.addInt(1);
+        list.addInt(2);
+        IntArrayList copy = list.trimmedCopy();
+        list.set(0, 10);
+        assertArrayEquals(new int[] { 1, 2 }, copy.toIntArray());
+        copy.addInt(3);
+        assertEquals(Arrays.asList(10, 2), list);
+    }
+
+    @Test
+    public void testLongArrayListMatchesArrayList() {
+        LongArrayList list = new LongArrayList();
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            list.addLong(i << 40);
+            expected.add(i << 40);
+        }
+        list.remove(50);
+        expected.remove(50);
+        list.add(0, -1L);
+        expected.add(0, -1L);
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(-1L, list.getLong(0));
+        assertThrows(NullPointerException.class, () -> list.add(null));
+        assertEquals(100, list.toLongArray().length);
+    }
+
+    @Test
+    public void testDoubleArrayListMatchesArrayList() {
+        DoubleArrayList list = new DoubleArrayList();
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.addDouble(i / 3.0);
+            expected.add(i / 3.0);
+        }
+        list.addDouble(Double.NaN);
+        expected.add(Double.NaN);
+        Iterator<Double> it = list.iterator();
+        it.next();
+        it.remove();
+        expected.remove(0);
+        assertEquals(expected, list);
+        assertEquals(expected.hashCode(), list.hashCode());
+        assertEquals(99, list.indexOf(Double.NaN));
+        assertThrows(NullPointerException.class, () -> list.set(0, null));
+        assertEquals(100, list.toDoubleArray().length);
+    }
+}
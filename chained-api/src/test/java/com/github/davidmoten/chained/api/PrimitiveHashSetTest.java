@@ -0,0 +1,187 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class PrimitiveHashSetTest {
+
+    @Test
+    public void testIntHashSetGrowsPastManyRehashes() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.addInt(i * 31));
+            assertFalse(set.addInt(i * 31));
+        }
+        assertEquals(1000, set.size());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.containsInt(i * 31));
+            assertFalse(set.containsInt(i * 31 + 1));
+        }
+    }
+
+    @Test
+    public void testIntHashSetMatchesLinkedHashSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(1);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(200) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.removeInt(value));
+            } else {
+                assertEquals(expected.add(value), set.addInt(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        // removal shifts rather than leaving tombstones so insertion order holds
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        for (int value = -100; value < 100; value++) {
+            assertEquals(expected.contains(value), set.containsInt(value));
+        }
+    }
+
+    @Test
+    public void testIntHashSetRemoveKeepsLaterElementsFindable() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 20; i++) {
+            set.addInt(i);
+        }
+        assertTrue(set.removeInt(0));
+        assertFalse(set.removeInt(0));
+        for (int i = 1; i < 20; i++) {
+            assertTrue(set.containsInt(i));
+        }
+        assertTrue(set.addInt(0));
+        assertEquals(20, set.size());
+    }
+
+    @Test
+    public void testIntHashSetEqualsAndHashCodeMatchHashSet() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            set.addInt(i * 7);
+            expected.add(i * 7);
+        }
+        assertEquals(expected, set);
+        assertEquals(set, expected);
+        assertEquals(expected.hashCode(), set.hashCode());
+        assertFalse(set.contains("a"));
+        assertFalse(set.contains(1L));
+        assertFalse(set.remove(7L));
+    }
+
+    @Test
+    public void testIntHashSetIteratorRemove() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 20; i++) {
+            set.addInt(i);
+        }
+        Iterator<Integer> it = set.iterator();
+        assertThrows(IllegalStateException.class, it::remove);
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertThrows(NoSuchElementException.class, it::next);
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9, 11, 13, 15, 17, 19), new ArrayList<>(set));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 2 == 1, set.containsInt(i));
+        }
+    }
+
+    @Test
+    public void testIntHashSetIteratorFailsFast() {
+        IntHashSet set = new IntHashSet();
+        set.addInt(1);
+        set.addInt(2);
+        Iterator<Integer> it = set.iterator();
+        it.next();
+        set.addInt(3);
+        assertThrows(ConcurrentModificationException.class, it::next);
+        assertThrows(ConcurrentModificationException.class, it::remove);
+    }
+
+    @Test
+    public void testIntHashSetRejectsNull() {
+        IntHashSet set = new IntHashSet();
+        assertThrows(NullPointerException.class, () -> set.add(null));
+        assertFalse(set.contains(null));
+        assertFalse(set.remove(null));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void testIntHashSetClear() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 20; i++) {
+            set.addInt(i);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.containsInt(5));
+        assertTrue(set.addInt(5));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testLongHashSetMatchesLinkedHashSetUnderRandomAddsAndRemoves() {
+        Random random = new Random(2);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new LinkedHashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            // values differing only in the high bits must not collide
+            long value = ((long) random.nextInt(100) << 32) | random.nextInt(2);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.removeLong(value));
+            } else {
+                assertEquals(expected.add(value), set.addLong(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        assertEquals(expected, set);
+        assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void testLongHashSetIteratorRemove() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 0; i < 20; i++) {
+            set.addLong(i);
+        }
+        Iterator<Long> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next() < 15) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(15L, 16L, 17L, 18L, 19L), new ArrayList<>(set));
+        assertTrue(set.containsLong(19));
+        assertFalse(set.containsLong(0));
+    }
+
+    @Test
+    public void testLongHashSetRejectsNull() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(NullPointerException.class, () -> set.add(null));
+        assertFalse(set.contains(null));
+        assertFalse(set.contains(1));
+        assertEquals(0, set.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.davidmoten.chained.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class SerializationTest {
+
+    @Test
+    public void testCompactListRoundTrip() throws Exception {
+        for (int n : new int[] { 2, 20 }) {
+            List<String> list = Helpers.compact(strings(n));
+            assertEquals(list, roundTrip(list));
+        }
+    }
+
+    @Test
+    public void testCompactSetRoundTrip() throws Exception {
+        for (int n : new int[] { 2, 20 }) {
+            Set<String> set = Helpers.compact(new LinkedHashSet<>(strings(n)));
+            Set<String> copy = roundTrip(set);
+            assertEquals(set, copy);
+            assertEquals(new ArrayList<>(set), new ArrayList<>(copy));
+            assertTrue(copy.contains("s" + (n - 1)));
+        }
+    }
+
+    @Test
+    public void testCompactMapWithEnumKeysRoundTrip() throws Exception {
+        // enum hash codes are identity based so the lookup table is rebuilt on read
+        Map<TimeUnit, Integer> map = new LinkedHashMap<>();
+        for (TimeUnit unit : TimeUnit.values()) {
+            map.put(unit, unit.ordinal());
+        }
+        Map<TimeUnit, Integer> compact = Helpers.compact(map);
+        Map<TimeUnit, Integer> copy = roundTrip(compact);
+        assertEquals(compact, copy);
+        for (TimeUnit unit : TimeUnit.values()) {
+            assertEquals(unit.ordinal(), (int) copy.get(unit));
+        }
+    }
+
+    @Test
+    public void testPrimitiveCollectionsRoundTrip() throws Exception {
+        IntArrayList ints = new IntArrayList();
+        LongHashSet longs = new LongHashSet();
+        ObjIntHashMap<TimeUnit> counts = new ObjIntHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            ints.addInt(i);
+            longs.addLong(i * 1000L);
+        }
+        for (TimeUnit unit : TimeUnit.values()) {
+            counts.putInt(unit, unit.ordinal());
+        }
+        assertEquals(ints, roundTrip(ints));
+        assertEquals(longs, roundTrip(longs));
+        ObjIntHashMap<TimeUnit> copy = roundTrip(counts);
+        assertEquals(counts, copy);
+        assertEquals(TimeUnit.DAYS.ordinal(), copy.getInt(TimeUnit.DAYS, -1));
+        copy.putInt(TimeUnit.DAYS, 100);
+        assertEquals(100, copy.getInt(TimeUnit.DAYS, -1));
+        assertEquals(counts.size(), copy.size());
+    }
+
+    private static List<String> strings(int n) {
+        String[] a = new String[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = "s" + i;
+        }
+        return Arrays.asList(a);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T o) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+}
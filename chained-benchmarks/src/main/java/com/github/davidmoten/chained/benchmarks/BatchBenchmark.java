@@ -0,0 +1,57 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.benchmarks.builder.MessageBatchBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.MessageBuilder;
+
+/**
+ * Measures building objects from columns of values with the generated batch
+ * builder against one builder chain per object.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final int SIZE = 1000;
+
+    private final List<String> ids = IntStream.range(0, SIZE).mapToObj(i -> "sensor-" + i)
+            .collect(Collectors.toList());
+    private final long[] times = LongStream.range(0, SIZE).map(i -> 1700000000000L + i).toArray();
+    private final double[] values = IntStream.range(0, SIZE).asDoubleStream().toArray();
+    private final List<List<String>> tags = IntStream.range(0, SIZE).mapToObj(i -> List.of("a", "b"))
+            .collect(Collectors.toList());
+
+    @Benchmark
+    public List<Message> builderPerObject() {
+        List<Message> list = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            list.add(MessageBuilder.builder().id(ids.get(i)).time(times[i]).value(values[i]).tags(tags.get(i)));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public List<Message> batchBuilder() {
+        return MessageBatchBuilder.size(SIZE).id(ids).time(times).value(values).tags(tags).build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled so that bytes allocated per
+ * operation ({@code gc.alloc.rate.norm}) are reported alongside ops/s. Standard
+ * JMH command line arguments are accepted (for example a benchmark name regex).
+ */
+public final class BenchmarksMain {
+
+    private BenchmarksMain() {
+        // prevent instantiation
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder() //
+                .parent(new CommandLineOptions(args)) //
+                .addProfiler(GCProfiler.class) //
+                .build()) //
+                .run();
+    }
+}
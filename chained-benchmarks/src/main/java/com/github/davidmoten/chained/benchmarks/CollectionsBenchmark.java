@@ -0,0 +1,169 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.api.IntListBuilder;
+import com.github.davidmoten.chained.api.ListBuilder;
+import com.github.davidmoten.chained.api.MapBuilder;
+import com.github.davidmoten.chained.api.SetBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NumbersBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NumbersCompactBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NumbersTransferBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.ScoresBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.TagsBuilder;
+
+/**
+ * Compares the collection paths of the generated builders (whole collection
+ * setters and the {@code ListBuilder}, {@code SetBuilder} and
+ * {@code MapBuilder} element paths) with a direct constructor call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    @Param({ "3", "1000" })
+    private int size;
+
+    private String name = "fred";
+    private List<Integer> numbers;
+    private Set<String> tags;
+    private Map<String, Integer> scores;
+
+    @Setup
+    public void setup() {
+        numbers = new ArrayList<>();
+        tags = new HashSet<>();
+        scores = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            numbers.add(i);
+            tags.add("tag" + i);
+            scores.put("score" + i, i);
+        }
+    }
+
+    @Benchmark
+    public Numbers listNew() {
+        return new Numbers(name, Collections.unmodifiableList(numbers));
+    }
+
+    @Benchmark
+    public Numbers listBuilder() {
+        return NumbersBuilder.builder().name(name).numbers(numbers);
+    }
+
+    @Benchmark
+    public NumbersTransfer listTransferBuilder() {
+        return NumbersTransferBuilder.builder().name(name).numbers(numbers);
+    }
+
+    @Benchmark
+    public NumbersCompact listCompactBuilder() {
+        return NumbersCompactBuilder.builder().name(name).numbers(numbers);
+    }
+
+    @Benchmark
+    public Numbers listElementsNew() {
+        List<Integer> list = new ArrayList<>();
+        for (Integer n : numbers) {
+            list.add(n);
+        }
+        return new Numbers(name, Collections.unmodifiableList(list));
+    }
+
+    @Benchmark
+    public Numbers listElementsBuilder() {
+        ListBuilder<Integer, Numbers> b = NumbersBuilder.builder().name(name).numbers();
+        for (Integer n : numbers) {
+            b.add(n);
+        }
+        return b.buildList();
+    }
+
+    @Benchmark
+    public Numbers listPrimitiveElementsBuilder() {
+        IntListBuilder<Numbers> b = NumbersBuilder.builder().name(name).numbers();
+        for (int i = 0; i < size; i++) {
+            b.add(i);
+        }
+        return b.buildList();
+    }
+
+    @Benchmark
+    public Tags setNew() {
+        return new Tags(name, Collections.unmodifiableSet(tags));
+    }
+
+    @Benchmark
+    public Tags setBuilder() {
+        return TagsBuilder.builder().name(name).tags(tags);
+    }
+
+    @Benchmark
+    public Tags setElementsNew() {
+        Set<String> set = new HashSet<>();
+        for (String tag : tags) {
+            set.add(tag);
+        }
+        return new Tags(name, Collections.unmodifiableSet(set));
+    }
+
+    @Benchmark
+    public Tags setElementsBuilder() {
+        SetBuilder<String, Tags> b = TagsBuilder.builder().name(name).tags();
+        for (String tag : tags) {
+            b.add(tag);
+        }
+        return b.buildList();
+    }
+
+    @Benchmark
+    public Scores mapNew() {
+        return new Scores(name, Collections.unmodifiableMap(scores));
+    }
+
+    @Benchmark
+    public Scores mapBuilder() {
+        return ScoresBuilder.builder().name(name).scores(scores);
+    }
+
+    @Benchmark
+    public Scores mapElementsNew() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return new Scores(name, Collections.unmodifiableMap(map));
+    }
+
+    @Benchmark
+    public Scores mapElementsBuilder() {
+        MapBuilder<String, Integer, Scores> b = ScoresBuilder.builder().name(name).scores();
+        for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+            b.put(entry.getKey(), entry.getValue());
+        }
+        return b.buildMap();
+    }
+}
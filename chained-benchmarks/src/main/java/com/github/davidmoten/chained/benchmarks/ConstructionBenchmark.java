@@ -0,0 +1,90 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.benchmarks.builder.DirectBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.HiddenBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NamedBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.WideBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.WideReusableBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.WideSingleInstanceBuilder;
+
+/**
+ * Compares each {@code Construction} mode of the generated builders (and the
+ * staged {@code BuilderWithX} chain) with a direct constructor call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+
+    private String name = "fred";
+    private int age = 42;
+    private String city = "Canberra";
+    private String description = "someone";
+
+    @Benchmark
+    public Direct directNew() {
+        return new Direct(name, age, city, Optional.of(description));
+    }
+
+    @Benchmark
+    public Direct directBuilder() {
+        return DirectBuilder.builder().name(name).age(age).city(city).description(description).build();
+    }
+
+    @Benchmark
+    public Hidden reflectionNew() {
+        return Hidden.of(name, age, city);
+    }
+
+    @Benchmark
+    public Hidden reflectionBuilder() {
+        return HiddenBuilder.builder().name(name).age(age).city(city);
+    }
+
+    @Benchmark
+    public Named interfaceNew() {
+        return new NamedValue(name, age, city);
+    }
+
+    @Benchmark
+    public Named interfaceBuilder() {
+        return NamedBuilder.builder().name(name).age(age).city(city);
+    }
+
+    @Benchmark
+    public Wide stagedNew() {
+        return new Wide(name, age, city, age, description, age, name, true);
+    }
+
+    @Benchmark
+    public Wide stagedBuilder() {
+        return WideBuilder.builder().a(name).b(age).c(city).d(age).e(description).f(age).g(name).h(true);
+    }
+
+    @Benchmark
+    public WideSingleInstance stagedSingleInstanceBuilder() {
+        return WideSingleInstanceBuilder.builder().a(name).b(age).c(city).d(age).e(description).f(age).g(name)
+                .h(true);
+    }
+
+    @Benchmark
+    public WideReusable stagedReusableBuilder() {
+        return WideReusableBuilder.reusable().a(name).b(age).c(city).d(age).e(description).f(age).g(name).h(true);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.benchmarks.builder.DirectBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.HiddenBuilder;
+
+/**
+ * Compares changing a single field through the generated {@code CopyBuilder}
+ * with a direct constructor call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+
+    private Direct direct = new Direct("fred", 42, "Canberra", Optional.of("someone"));
+    private Hidden hidden = Hidden.of("fred", 42, "Canberra");
+    private String city = "Sydney";
+
+    @Benchmark
+    public Direct copyDirectNew() {
+        return new Direct(direct.name(), direct.age(), city, direct.description());
+    }
+
+    @Benchmark
+    public Direct copyDirectBuilder() {
+        return DirectBuilder.copy(direct).city(city).build();
+    }
+
+    @Benchmark
+    public Hidden copyReflectionNew() {
+        return Hidden.of(hidden.name(), hidden.age(), city);
+    }
+
+    @Benchmark
+    public Hidden copyReflectionBuilder() {
+        return HiddenBuilder.copy(hidden).city(city).build();
+    }
+}
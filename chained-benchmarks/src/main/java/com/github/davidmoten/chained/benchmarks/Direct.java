@@ -0,0 +1,17 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Record with a visible constructor, built with {@code Construction.DIRECT}.
+ * 
+ * @param name        name
+ * @param age         age
+ * @param city        city
+ * @param description optional description
+ */
+@Builder
+public record Direct(String name, int age, String city, Optional<String> description) {
+}
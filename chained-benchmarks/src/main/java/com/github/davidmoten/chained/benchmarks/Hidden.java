@@ -0,0 +1,45 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Class with a private constructor, built with
+ * {@code Construction.REFLECTION}.
+ */
+@Builder
+public final class Hidden {
+
+    private final String name;
+    private final int age;
+    private final String city;
+
+    private Hidden(String name, int age, String city) {
+        this.name = name;
+        this.age = age;
+        this.city = city;
+    }
+
+    /**
+     * Hand-written factory used as the baseline for the reflective builder.
+     * 
+     * @param name name
+     * @param age  age
+     * @param city city
+     * @return new instance
+     */
+    public static Hidden of(String name, int age, String city) {
+        return new Hidden(name, age, city);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int age() {
+        return age;
+    }
+
+    public String city() {
+        return city;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.benchmarks.builder.MessageJson;
+
+/**
+ * Measures writing and reading JSON with the generated {@code MessageJson}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    private Message message = new Message("sensor-123", 1700000000000L, 12.5, List.of("a", "b", "c"));
+    private String json = MessageJson.toJson(message);
+    private StringBuilder buffer = new StringBuilder();
+
+    @Benchmark
+    public String toJson() {
+        return MessageJson.toJson(message);
+    }
+
+    @Benchmark
+    public int writeReusedBuffer() throws IOException {
+        buffer.setLength(0);
+        MessageJson.write(message, buffer);
+        return buffer.length();
+    }
+
+    @Benchmark
+    public Message fromJson() {
+        return MessageJson.fromJson(json);
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Value object passed between services, used to measure the generated codec
+ * (against Java serialization), JSON and batch builder classes.
+ * 
+ * @param id    identifier
+ * @param time  epoch millis
+ * @param value measurement
+ * @param tags  tags
+ */
+@Builder(codec = true, json = true, batch = true)
+public record Message(String id, long time, double value, List<String> tags) implements Serializable {
+}
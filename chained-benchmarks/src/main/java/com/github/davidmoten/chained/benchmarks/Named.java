@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Interface built with {@code Construction.INTERFACE_IMPLEMENTATION}.
+ */
+@Builder
+public interface Named {
+
+    String name();
+
+    int age();
+
+    String city();
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Same as {@link Named} but the generated implementation caches its hash code.
+ */
+@Builder(cacheHashCode = true)
+public interface NamedCached {
+
+    String name();
+
+    int age();
+
+    String city();
+}
@@ -0,0 +1,33 @@
+package com.github.davidmoten.chained.benchmarks;
+
+/**
+ * Hand-written implementation of {@link Named} used as the baseline for the
+ * generated implementation class.
+ */
+public final class NamedValue implements Named {
+
+    private final String name;
+    private final int age;
+    private final String city;
+
+    public NamedValue(String name, int age, String city) {
+        this.name = name;
+        this.age = age;
+        this.city = city;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int age() {
+        return age;
+    }
+
+    @Override
+    public String city() {
+        return city;
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Record with a {@code List} field so that the {@code ListBuilder} path is
+ * exercised.
+ * 
+ * @param name    name
+ * @param numbers list of numbers
+ */
+@Builder(primitiveCollections = true)
+public record Numbers(String name, List<Integer> numbers) {
+}
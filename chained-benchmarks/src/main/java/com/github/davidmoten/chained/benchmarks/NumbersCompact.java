@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Same as {@link Numbers} but the built object holds a compact immutable copy
+ * of the list rather than an unmodifiable view of the builder's list.
+ * 
+ * @param name    name
+ * @param numbers list of numbers
+ */
+@Builder(compactCollections = true)
+public record NumbersCompact(String name, List<Integer> numbers) {
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Same as {@link Numbers} but the builder adopts the list passed to it rather
+ * than copying it.
+ * 
+ * @param name    name
+ * @param numbers list of numbers
+ */
+@Builder(transferCollections = true)
+public record NumbersTransfer(String name, List<Integer> numbers) {
+}
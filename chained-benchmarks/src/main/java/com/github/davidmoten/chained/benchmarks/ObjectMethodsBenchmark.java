@@ -0,0 +1,83 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.davidmoten.chained.benchmarks.builder.NamedBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NamedCachedBuilder;
+import com.github.davidmoten.chained.benchmarks.builder.NamedImpl;
+
+/**
+ * Measures the {@code hashCode}, {@code equals} and {@code toString} methods
+ * of the generated interface implementations against hand-written baselines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectMethodsBenchmark {
+
+    private Named named = NamedBuilder.builder().name("fred").age(42).city("Canberra");
+    private Named named2 = NamedBuilder.builder().name("fred").age(43).city("Canberra");
+    private NamedCached namedCached = NamedCachedBuilder.builder().name("fred").age(42).city("Canberra");
+    private StringBuilder buffer = new StringBuilder();
+
+    @Benchmark
+    public int hashCodeObjectsHash() {
+        return Objects.hash(named.name(), named.age(), named.city());
+    }
+
+    @Benchmark
+    public int hashCodeGenerated() {
+        return named.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeGeneratedCached() {
+        return namedCached.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsObjectsEquals() {
+        return Objects.equals(named.name(), named2.name()) && Objects.equals(named.age(), named2.age())
+                && Objects.equals(named.city(), named2.city());
+    }
+
+    @Benchmark
+    public boolean equalsGenerated() {
+        return named.equals(named2);
+    }
+
+    @Benchmark
+    public String toStringValueOf() {
+        StringBuilder b = new StringBuilder();
+        b.append("NamedImpl[name=").append(String.valueOf(named.name())) //
+                .append(", age=").append(String.valueOf(named.age())) //
+                .append(", city=").append(String.valueOf(named.city())) //
+                .append("]");
+        return b.toString();
+    }
+
+    @Benchmark
+    public String toStringGenerated() {
+        return named.toString();
+    }
+
+    @Benchmark
+    public int appendToReusedBuffer() {
+        buffer.setLength(0);
+        return ((NamedImpl) named).appendTo(buffer).length();
+    }
+}
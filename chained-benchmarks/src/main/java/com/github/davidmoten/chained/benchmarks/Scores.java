@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Map;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Record with a {@code Map} field so that the {@code MapBuilder} path is
+ * exercised.
+ * 
+ * @param name   name
+ * @param scores map of scores
+ */
+@Builder
+public record Scores(String name, Map<String, Integer> scores) {
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Record with a {@code Set} field so that the {@code SetBuilder} path is
+ * exercised.
+ * 
+ * @param name name
+ * @param tags set of tags
+ */
+@Builder
+public record Tags(String name, Set<String> tags) {
+}
@@ -0,0 +1,20 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Record with eight mandatory fields so that the staged {@code BuilderWithX}
+ * chain is exercised.
+ * 
+ * @param a first field
+ * @param b second field
+ * @param c third field
+ * @param d fourth field
+ * @param e fifth field
+ * @param f sixth field
+ * @param g seventh field
+ * @param h eighth field
+ */
+@Builder
+public record Wide(String a, int b, String c, long d, String e, double f, String g, boolean h) {
+}
@@ -0,0 +1,20 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+/**
+ * Same as {@link Wide} but with a reusable builder so that no builder object is
+ * created per build (when using {@code WideReusableBuilder.reusable()}).
+ * 
+ * @param a first field
+ * @param b second field
+ * @param c third field
+ * @param d fourth field
+ * @param e fifth field
+ * @param f sixth field
+ * @param g seventh field
+ * @param h eighth field
+ */
+@Builder(reusable = true)
+public record WideReusable(String a, int b, String c, long d, String e, double f, String g, boolean h) {
+}
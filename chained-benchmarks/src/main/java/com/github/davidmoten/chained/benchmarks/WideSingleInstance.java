@@ -0,0 +1,21 @@
+package com.github.davidmoten.chained.benchmarks;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+
+/**
+ * Same as {@link Wide} but generated with {@link Stages#SINGLE_INSTANCE} so that
+ * a single builder object is created per build.
+ * 
+ * @param a first field
+ * @param b second field
+ * @param c third field
+ * @param d fourth field
+ * @param e fifth field
+ * @param f sixth field
+ * @param g seventh field
+ * @param h eighth field
+ */
+@Builder(stages = Stages.SINGLE_INSTANCE)
+public record WideSingleInstance(String a, int b, String c, long d, String e, double f, String g, boolean h) {
+}
@@ -1,25 +1,34 @@
 package com.github.davidmoten.chained.processor;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 import javax.annotation.processing.AbstractProcessor;
-import javax.annotation.processing.Filer;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -27,15 +36,28 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.NestingKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
 import javax.lang.model.util.Elements;
 import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
 
 import com.github.davidmoten.chained.api.annotation.Builder;
 import com.github.davidmoten.chained.api.annotation.BuilderConstructor;
 import com.github.davidmoten.chained.api.annotation.Check;
+import com.github.davidmoten.chained.api.annotation.Memoized;
 import com.github.davidmoten.chained.processor.Generator.Construction;
+import com.github.davidmoten.chained.processor.Generator.Options;
+import com.github.davidmoten.chained.processor.Generator.Output;
 import com.github.davidmoten.chained.processor.Generator.Parameter;
+import com.github.davidmoten.chained.processor.Generator.TypeModel;
+import com.github.davidmoten.chained.processor.ProcessorStats.CountingWriter;
+import com.github.davidmoten.chained.processor.ProcessorStats.RoundStats;
+import com.github.davidmoten.chained.processor.ProcessorStats.TypeStats;
 
 import jakarta.annotation.Nullable;
 
@@ -43,12 +65,21 @@ import jakarta.annotation.Nullable;
  * Annotation processor for the {@link Builder} annotation.
  */
 @SupportedAnnotationTypes("com.github.davidmoten.chained.api.annotation.Builder")
+@SupportedOptions({ "generatedClassName", "generatedImplementationClassName", "javadocs", "methodHandles", "parallelism",
+        "chained.stats" })
 public final class BuilderProcessor extends AbstractProcessor {
 
     private static final String DEFAULT_BUILDER_CLASS_NAME_TEMPLATE = "${pkg}.builder.${simpleName}Builder";
     private static final String DEFAULT_IMPLEMENTATION_CLASS_NAME_TEMPLATE = "${pkg}.builder.${simpleName}Impl";
     private static final String DEFAULT_JAVADOCS_LOCATION = "src/main/javadoc";
+    private static final String DEFAULT_STATS_FILE = "chained-stats.json";
     private Elements utils;
+    // loaded once per processor instance (javac creates a new instance per compilation)
+    private Javadocs javadocs;
+    // created on first use by a round with more than one file to render
+    private ForkJoinPool pool;
+    // null unless the chained.stats option is present
+    private ProcessorStats stats;
     
     /**
      * Constructor.
@@ -66,12 +97,23 @@ public final class BuilderProcessor extends AbstractProcessor {
     public synchronized void init(ProcessingEnvironment processingEnv) {
         super.init(processingEnv);
         utils = processingEnv.getElementUtils();
+        if (processingEnv.getOptions().containsKey("chained.stats")) {
+            stats = new ProcessorStats();
+        }
+        long start = System.nanoTime();
+        javadocs = new Javadocs(processingEnv);
+        if (stats != null) {
+            stats.javadocIndexNanos(System.nanoTime() - start);
+        }
     }
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
-        Javadocs javadocs = new Javadocs(processingEnv);
         try {
+            // the models of all annotated types are collected on the compiler thread
+            // because javax.lang.model is not thread-safe
+            List<SourceFile> sourceFiles = new ArrayList<>();
+            RoundStats round = stats == null ? null : stats.newRound();
             for (Element element : roundEnv.getElementsAnnotatedWith(Builder.class)) {
                 if (element instanceof TypeElement) {
                     TypeElement typeElement = (TypeElement) element;
@@ -111,117 +153,366 @@ public final class BuilderProcessor extends AbstractProcessor {
                     String implementationClassName = templatedImplementationClassName //
                             .replace("${pkg}", packageName) //
                             .replace("${simpleName}", simpleClassName);
+                    TypeStats typeStats = stats == null ? null : stats.newType(fullClassName);
+                    long start = System.nanoTime();
+                    long javadocStart = javadocs.loadNanos();
                     try {
-                        Filer filer = processingEnv.getFiler();
-                        {
-                            JavaFileObject file = filer.createSourceFile(builderClassName);
-                            try (PrintWriter out = new PrintWriter(file.openWriter())) {
-                                if (typeElement.getKind() == ElementKind.INTERFACE) {
-                                    generateFromInterface(typeElement, packageName, annotation, builderClassName,
-                                            implementationClassName, javadocs, out);
-                                } else if (typeElement.getKind() == ElementKind.CLASS
-                                        || typeElement.getKind().name().equals("RECORD")) {
-                                    generateFromClassOrRecord(typeElement, packageName, annotation, builderClassName,
-                                            implementationClassName, javadocs, fullClassName, out);
-                                } else {
-                                    log(Kind.WARNING, "class type " + typeElement.getKind()
-                                            + " not supported for builder generation");
-                                }
-                            }
-                        }
-                        if (typeElement.getKind() == ElementKind.INTERFACE) {
-                            JavaFileObject file = filer.createSourceFile(implementationClassName);
-                            try (PrintWriter out = new PrintWriter(file.openWriter())) {
-                                if (typeElement.getKind() == ElementKind.INTERFACE) {
-                                    String className = typeElement.getQualifiedName().toString();
-                                    List<Parameter> parameters = parametersFromInterface(typeElement,
-                                            implementationClassName, javadocs);
-                                    String code = Generator.generateImplementationClass(className, parameters,
-                                            implementationClassName, checkMethodName(typeElement));
-                                    out.println(code);
-                                }
-                            }
-                        }
-
-                    } catch (IOException | RuntimeException e) {
-                        ByteArrayOutputStream b = new ByteArrayOutputStream();
-                        try (PrintWriter writer = new PrintWriter(b)) {
-                            e.printStackTrace(writer);
-                        }
-                        log(Kind.ERROR, new String(b.toByteArray(), StandardCharsets.UTF_8), element);
+                        collectSourceFiles(typeElement, packageName, fullClassName, annotation, builderClassName,
+                                implementationClassName, sourceFiles, typeStats);
+                    } catch (RuntimeException e) {
+                        logError(e, element);
                         return false;
                     }
+                    if (typeStats != null) {
+                        typeStats.modelNanos = System.nanoTime() - start;
+                        typeStats.javadocNanos = javadocs.loadNanos() - javadocStart;
+                        round.types++;
+                        round.modelNanos += typeStats.modelNanos;
+                    }
                 }
             }
-            return true;
-        } catch (RuntimeException e) {
-            ByteArrayOutputStream b = new ByteArrayOutputStream();
-            try (PrintWriter writer = new PrintWriter(b)) {
-                e.printStackTrace(writer);
+            long renderStart = System.nanoTime();
+            List<Future<Output>> codes = render(sourceFiles);
+            if (round != null) {
+                round.files = sourceFiles.size();
+                round.renderNanos = System.nanoTime() - renderStart;
+            }
+            long writeStart = System.nanoTime();
+            boolean success = writeSourceFiles(sourceFiles, codes);
+            if (round != null) {
+                round.writeNanos = System.nanoTime() - writeStart;
             }
-            log(Kind.ERROR, new String(b.toByteArray(), StandardCharsets.UTF_8));
+            return success;
+        } catch (RuntimeException e) {
+            log(Kind.ERROR, stackTrace(e));
             return false;
+        } finally {
+            // report even if this (last) round failed
+            if (roundEnv.processingOver() && stats != null) {
+                reportStats();
+            }
+        }
+    }
+
+    /**
+     * A source file to be generated. The renderer only uses the model collected
+     * on the compiler thread so that it can be run on another thread.
+     */
+    private static final class SourceFile {
+        final String className;
+        // the single originating element (required for Gradle isolating incremental
+        // processing)
+        final TypeElement typeElement;
+        final Callable<Output> renderer;
+        // null unless statistics are collected
+        final TypeStats stats;
+        // set by the rendering thread (visible after Future.get)
+        long renderNanos;
+
+        SourceFile(String className, TypeElement typeElement, Callable<Output> renderer, TypeStats stats) {
+            this.className = className;
+            this.typeElement = typeElement;
+            this.renderer = renderer;
+            this.stats = stats;
+        }
+
+        Output render() throws Exception {
+            long start = System.nanoTime();
+            Output output = renderer.call();
+            renderNanos = System.nanoTime() - start;
+            return output;
+        }
+    }
+
+    /**
+     * The model of an annotated type that is read once from the
+     * {@link TypeElement} (on the compiler thread) and shared by all the
+     * generated files of the type.
+     */
+    private static final class Metamodel {
+        final String className;
+        final List<Parameter> parameters;
+        final Construction construction;
+        // only present for interfaces
+        final Optional<String> checkMethodName;
+        // only non-empty for interfaces
+        final List<Parameter> memoized;
+
+        Metamodel(String className, List<Parameter> parameters, Construction construction,
+                Optional<String> checkMethodName, List<Parameter> memoized) {
+            this.className = className;
+            this.parameters = parameters;
+            this.construction = construction;
+            this.checkMethodName = checkMethodName;
+            this.memoized = memoized;
+        }
+    }
+
+    private Optional<Metamodel> metamodel(TypeElement typeElement, String packageName, String fullClassName,
+            String builderClassName, String implementationClassName) {
+        String className = typeElement.getQualifiedName().toString();
+        if (typeElement.getKind() == ElementKind.INTERFACE) {
+            List<ExecutableElement> methods = typeElement //
+                    .getEnclosedElements() //
+                    .stream() //
+                    .filter(x -> x.getKind() == ElementKind.METHOD) //
+                    .filter(x -> !x.getModifiers().contains(Modifier.STATIC)) //
+                    .map(x -> (ExecutableElement) x) //
+                    .filter(x -> x.getParameters().isEmpty()) //
+                    .collect(Collectors.toList());
+            return Optional.of(new Metamodel(className, //
+                    parametersFromInterface(methods, implementationClassName, javadocs), //
+                    Construction.INTERFACE_IMPLEMENTATION, //
+                    checkMethodName(typeElement, methods), //
+                    memoized(typeElement)));
+        } else if (typeElement.getKind() == ElementKind.CLASS || typeElement.getKind().name().equals("RECORD")) {
+            ExecutableElement constructor = constructor(typeElement);
+            return Optional.of(new Metamodel(className, //
+                    parametersFromClassOrRecord(typeElement, constructor, javadocs, fullClassName), //
+                    constructionFromClassOrRecord(constructor, packageName, builderClassName), //
+                    Optional.empty(), //
+                    Collections.emptyList()));
+        } else {
+            log(Kind.WARNING, "class type " + typeElement.getKind() + " not supported for builder generation");
+            return Optional.empty();
+        }
+    }
+
+    private void collectSourceFiles(TypeElement typeElement, String packageName, String fullClassName,
+            Builder annotation, String builderClassName, String implementationClassName, List<SourceFile> list,
+            TypeStats typeStats) {
+        Optional<Metamodel> metamodel = metamodel(typeElement, packageName, fullClassName, builderClassName,
+                implementationClassName);
+        if (!metamodel.isPresent()) {
+            return;
+        }
+        String className = metamodel.get().className;
+        List<Parameter> parameters = metamodel.get().parameters;
+        Construction construction = metamodel.get().construction;
+        Options options = options(annotation);
+        // read on the compiler thread, the annotation proxy is not used when rendering
+        boolean alwaysIncludeBuildMethod = annotation.alwaysIncludeBuildMethod();
+        boolean copy = annotation.copy();
+        if (typeStats != null) {
+            typeStats.construction = construction;
+        }
+        list.add(new SourceFile(builderClassName, typeElement, () -> Generator.chainedBuilder( //
+                className, //
+                builderClassName, //
+                parameters, //
+                construction, //
+                alwaysIncludeBuildMethod, //
+                implementationClassName, //
+                copy, //
+                options), typeStats));
+        if (construction == Construction.INTERFACE_IMPLEMENTATION) {
+            Optional<String> checkMethodName = metamodel.get().checkMethodName;
+            List<Parameter> memoized = metamodel.get().memoized;
+            list.add(new SourceFile(implementationClassName, typeElement, () -> Generator
+                    .generateImplementationClass(className, parameters, implementationClassName, checkMethodName,
+                            memoized, options), typeStats));
+        }
+        // companions are generated in the builder package so have the same access to
+        // the constructor as the builder
+        if (annotation.codec()) {
+            String codecClassName = companionClassName(builderClassName, typeElement, "Codec");
+            list.add(new SourceFile(codecClassName, typeElement, () -> Generator.generateCodec(className,
+                    codecClassName, parameters, construction, implementationClassName, options), typeStats));
+        }
+        if (annotation.batch()) {
+            String batchClassName = companionClassName(builderClassName, typeElement, "BatchBuilder");
+            list.add(new SourceFile(batchClassName, typeElement, () -> Generator.generateBatchBuilder(className,
+                    batchClassName, parameters, construction, implementationClassName, options), typeStats));
+        }
+        if (annotation.flyweight()) {
+            if (construction != Construction.INTERFACE_IMPLEMENTATION) {
+                throw new IllegalStateException("flyweight is only supported for interfaces: " + className);
+            }
+            String flyweightClassName = companionClassName(builderClassName, typeElement, "Flyweight");
+            list.add(new SourceFile(flyweightClassName, typeElement, () -> Generator.generateFlyweight(className,
+                    flyweightClassName, parameters, implementationClassName), typeStats));
+        }
+        if (annotation.json()) {
+            String jsonClassName = companionClassName(builderClassName, typeElement, "Json");
+            list.add(new SourceFile(jsonClassName, typeElement, () -> Generator.generateJson(className,
+                    jsonClassName, parameters, construction, implementationClassName, options), typeStats));
+        }
+    }
+
+    private static String companionClassName(String builderClassName, TypeElement typeElement, String suffix) {
+        String builderPackageName = Util.pkg(builderClassName);
+        return (builderPackageName.isEmpty() ? "" : builderPackageName + ".") + typeElement.getSimpleName() + suffix;
+    }
+
+    /**
+     * Renders the source code of the files, in parallel if there is more than one.
+     * The returned futures are in the same order as the files.
+     */
+    private List<Future<Output>> render(List<SourceFile> sourceFiles) {
+        List<Callable<Output>> renderers = sourceFiles //
+                .stream() //
+                .map(x -> (Callable<Output>) x::render) //
+                .collect(Collectors.toList());
+        if (renderers.size() < 2 || parallelism() == 1) {
+            List<Future<Output>> list = new ArrayList<>();
+            for (Callable<Output> renderer : renderers) {
+                FutureTask<Output> task = new FutureTask<>(renderer);
+                task.run();
+                list.add(task);
+            }
+            return list;
+        }
+        return pool().invokeAll(renderers);
+    }
+
+    private boolean writeSourceFiles(List<SourceFile> sourceFiles, List<Future<Output>> codes) {
+        // the Filer is not thread-safe so files are written on the compiler thread
+        boolean success = true;
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            SourceFile f = sourceFiles.get(i);
+            try {
+                Output code = codes.get(i).get();
+                long start = System.nanoTime();
+                JavaFileObject file = processingEnv.getFiler().createSourceFile(f.className, f.typeElement);
+                try (Writer out = f.stats == null ? file.openWriter() : new CountingWriter(file.openWriter())) {
+                    code.writeTo(out);
+                    out.write(System.lineSeparator());
+                    if (f.stats != null) {
+                        f.stats.files++;
+                        f.stats.bytes += ((CountingWriter) out).bytes();
+                        f.stats.renderNanos += f.renderNanos;
+                        f.stats.writeNanos += System.nanoTime() - start;
+                    }
+                }
+            } catch (ExecutionException e) {
+                logError(e.getCause(), f.typeElement);
+                success = false;
+            } catch (IOException e) {
+                logError(e, f.typeElement);
+                success = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return success;
+    }
+
+    private void reportStats() {
+        stats.report(processingEnv.getMessager());
+        String value = processingEnv.getOptions().get("chained.stats");
+        if (!isEmpty(value) && !value.equals("true")) {
+            Path file = Paths.get(value);
+            try {
+                stats.writeJson(file);
+            } catch (IOException e) {
+                log(Kind.WARNING, "could not write chained stats to " + file + ": " + e);
+            }
+        } else {
+            // the build directory can't be derived reliably from the class output
+            // directory (it differs between build tools) so write next to the classes
+            try {
+                FileObject f = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                        DEFAULT_STATS_FILE);
+                try (Writer out = f.openWriter()) {
+                    stats.writeJson(out);
+                }
+            } catch (IOException | RuntimeException e) {
+                log(Kind.WARNING, "could not write chained stats to the class output directory: " + e);
+            }
+        }
+    }
+
+    private ForkJoinPool pool() {
+        // a dedicated pool so that rendering does not compete with other users of the
+        // common pool in the compiler, reused across rounds (worker threads are
+        // daemon threads that terminate when idle)
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism());
+        }
+        return pool;
+    }
+
+    private int parallelism() {
+        String value = processingEnv.getOptions().get("parallelism");
+        if (value != null) {
+            return Math.max(1, Integer.parseInt(value));
+        } else {
+            return Runtime.getRuntime().availableProcessors();
         }
     }
 
     static final class Javadocs {
         private static final String JAVADOC_FILE_EXTENSION = ".txt";
-        private final Map<String, String> map;
+        private static final String JAVADOC_FILE_GLOB = "*" + JAVADOC_FILE_EXTENSION;
+
+        // class name -> directory containing one javadoc file per field
+        private final Map<String, Path> directories;
+
+        // class name -> field name -> javadoc, loaded on first request for the class
+        private final Map<String, Map<String, String>> cache = new HashMap<>();
+
+        // total time spent loading javadoc files
+        private long loadNanos;
 
         Javadocs(ProcessingEnvironment processingEnv) {
             String javadocsLocation = processingEnv //
                     .getOptions() //
                     .getOrDefault("javadocs", DEFAULT_JAVADOCS_LOCATION);
-            File javadocsDir = new File(javadocsLocation);
-            File[] files = javadocsDir.listFiles();
-            if (files != null) {
-                map = Arrays.stream(files) //
-                        .filter(file -> file.isDirectory()) //
-                        .flatMap(file -> Arrays.stream(file.listFiles())
-                                .filter(f -> f.isFile() && f.getName().endsWith(JAVADOC_FILE_EXTENSION)) //
-                                .map(f -> toPair(file, f)))
-                        .collect(Collectors.toMap(Pair::key, Pair::value));
-            } else {
-                map = Collections.emptyMap();
-            }
+            this.directories = directories(Paths.get(javadocsLocation));
         }
 
         Optional<String> get(String fullClassName, String fieldName) {
-            String key = fullClassName + ":" + fieldName;
-            return Optional.ofNullable(map.get(key));
-        }
-
-        private static Pair toPair(File file, File f) {
-            String name = f.getName().substring(0, f.getName().length() - JAVADOC_FILE_EXTENSION.length());
-            try {
-                String text = new String(java.nio.file.Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
-                return new Pair(file.getName() + ":" + name, text);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+            Path directory = directories.get(fullClassName);
+            if (directory == null) {
+                return Optional.empty();
             }
+            return Optional.ofNullable(cache.computeIfAbsent(fullClassName, k -> {
+                long start = System.nanoTime();
+                Map<String, String> map = load(directory);
+                loadNanos += System.nanoTime() - start;
+                return map;
+            }).get(fieldName));
         }
 
-        private static final class Pair {
-            final String key;
-            final String value;
+        long loadNanos() {
+            return loadNanos;
+        }
 
-            Pair(String key, String value) {
-                this.key = key;
-                this.value = value;
+        private static Map<String, Path> directories(Path javadocsDir) {
+            if (!Files.isDirectory(javadocsDir)) {
+                return Collections.emptyMap();
             }
-
-            String key() {
-                return key;
+            Map<String, Path> map = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(javadocsDir, Files::isDirectory)) {
+                for (Path dir : stream) {
+                    map.put(dir.getFileName().toString(), dir);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            return map;
+        }
 
-            String value() {
-                return value;
+        private static Map<String, String> load(Path directory) {
+            Map<String, String> map = new HashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, JAVADOC_FILE_GLOB)) {
+                for (Path f : stream) {
+                    if (Files.isRegularFile(f)) {
+                        String filename = f.getFileName().toString();
+                        String name = filename.substring(0, filename.length() - JAVADOC_FILE_EXTENSION.length());
+                        map.put(name, new String(Files.readAllBytes(f), StandardCharsets.UTF_8));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            return map;
         }
 
         @Override
         public String toString() {
-            return "Javadocs [map=" + map + "]";
+            return "Javadocs [directories=" + directories.keySet() + ", loaded=" + cache + "]";
         }
     }
 
@@ -237,14 +528,21 @@ public final class BuilderProcessor extends AbstractProcessor {
         processingEnv.getMessager().printMessage(kind, message);
     }
 
-    private static Optional<String> checkMethodName(TypeElement typeElement) {
-        List<ExecutableElement> list = typeElement //
-                .getEnclosedElements() //
+    private void logError(Throwable e, Element element) {
+        log(Kind.ERROR, stackTrace(e), element);
+    }
+
+    private static String stackTrace(Throwable e) {
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        try (PrintWriter writer = new PrintWriter(b)) {
+            e.printStackTrace(writer);
+        }
+        return new String(b.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Optional<String> checkMethodName(TypeElement typeElement, List<ExecutableElement> methods) {
+        List<ExecutableElement> list = methods //
                 .stream() //
-                .filter(x -> x.getKind() == ElementKind.METHOD) //
-                .filter(x -> !x.getModifiers().contains(Modifier.STATIC)) //
-                .map(x -> (ExecutableElement) x) //
-                .filter(x -> x.getParameters().isEmpty()) //
                 .filter(x -> x.getAnnotation(Check.class) != null) //
                 .collect(Collectors.toList());
         if (list.size() > 1) {
@@ -257,49 +555,48 @@ public final class BuilderProcessor extends AbstractProcessor {
         }
     }
 
-    private void generateFromInterface(TypeElement typeElement, String packageName, Builder annotation,
-            String builderClassName, String implementationClassName, Javadocs javadocs, PrintWriter out) {
-        List<Parameter> parameters = parametersFromInterface(typeElement, implementationClassName, javadocs);
-        out.print(Generator.chainedBuilder( //
-                typeElement.getQualifiedName().toString(), //
-                builderClassName, //
-                parameters, //
-                Construction.INTERFACE_IMPLEMENTATION, //
-                annotation.alwaysIncludeBuildMethod(), //
-                implementationClassName, //
-                annotation.copy()));
-        out.println();
-    }
-
-    private static List<Parameter> parametersFromInterface(TypeElement typeElement, String implementationClassName,
-            Javadocs javadocs) {
+    private static List<Parameter> memoized(TypeElement typeElement) {
         return typeElement //
                 .getEnclosedElements() //
                 .stream() //
                 .filter(x -> x.getKind() == ElementKind.METHOD) //
-                .filter(x -> !x.getModifiers().contains(Modifier.STATIC)
-                        && !x.getModifiers().contains(Modifier.DEFAULT)) //
+                .filter(x -> x.getAnnotation(Memoized.class) != null) //
                 .map(x -> (ExecutableElement) x) //
-                .filter(x -> x.getParameters().isEmpty()) //
-                .map(x -> new Parameter(x.getReturnType().toString(), x.getSimpleName().toString(),
+                .map(x -> {
+                    if (!x.getModifiers().contains(Modifier.DEFAULT) || !x.getParameters().isEmpty()
+                            || x.getReturnType().getKind() == TypeKind.VOID) {
+                        throw new IllegalStateException("@Memoized method " + typeElement.getSimpleName() + "."
+                                + x.getSimpleName() + " must be a default method with no parameters and a result");
+                    }
+                    return new Parameter(x.getReturnType().toString(), typeModel(x.getReturnType()),
+                            x.getSimpleName().toString(), false, Optional.empty(), false);
+                }) //
+                .collect(Collectors.toList());
+    }
+
+    private static List<Parameter> parametersFromInterface(List<ExecutableElement> methods,
+            String implementationClassName, Javadocs javadocs) {
+        return methods //
+                .stream() //
+                .filter(x -> !x.getModifiers().contains(Modifier.DEFAULT)) //
+                .map(x -> new Parameter(x.getReturnType().toString(), typeModel(x.getReturnType()),
+                        x.getSimpleName().toString(),
                         x.getAnnotation(Nullable.class) != null,
                         javadocs.get(implementationClassName, x.getSimpleName().toString()), true)) //
                 .collect(Collectors.toList());
     }
 
-    private void generateFromClassOrRecord(TypeElement typeElement, String packageName, Builder annotation,
-            String builderClassName, String implementationClassName, Javadocs javadocs, String fullClassName,
-            PrintWriter out) {
-        String builderPackageName = Util.pkg(builderClassName);
-        ExecutableElement constructor = constructor(typeElement);
-        Map<String, String> fieldJavadoc = fieldJavadoc(typeElement, utils);
-        List<Parameter> parameters = constructor //
+    private List<Parameter> parametersFromClassOrRecord(TypeElement typeElement, ExecutableElement constructor,
+            Javadocs javadocs, String fullClassName) {
+        Map<String, String> fieldJavadoc = fieldJavadoc(typeElement, constructor, utils);
+        return constructor //
                 .getParameters() //
                 .stream() //
                 .map(p -> {
                     Optional<String> prerenderedJavadoc = javadocs.get(fullClassName, p.getSimpleName().toString());
                     return new Parameter( //
                             p.asType().toString(), //
+                            typeModel(p.asType()), //
                             p.getSimpleName().toString(), //
                             p.getAnnotation(Nullable.class) != null, //
                             Optional.ofNullable(prerenderedJavadoc //
@@ -307,6 +604,11 @@ public final class BuilderProcessor extends AbstractProcessor {
                             prerenderedJavadoc.isPresent());
                 }) //
                 .collect(Collectors.toList());
+    }
+
+    private static Construction constructionFromClassOrRecord(ExecutableElement constructor, String packageName,
+            String builderClassName) {
+        String builderPackageName = Util.pkg(builderClassName);
         Set<Modifier> modifiers = constructor.getModifiers();
         boolean constructorVisible = //
                 modifiers.contains(Modifier.PUBLIC) //
@@ -314,18 +616,42 @@ public final class BuilderProcessor extends AbstractProcessor {
                         !modifiers.contains(Modifier.PRIVATE) //
                                 && !modifiers.contains(Modifier.PROTECTED) //
                                 && packageName.equals(builderPackageName);
-        out.print(Generator.chainedBuilder( //
-                typeElement.getQualifiedName().toString(), //
-                builderClassName, //
-                parameters, //
-                constructorVisible ? Construction.DIRECT : Construction.REFLECTION, //
-                annotation.alwaysIncludeBuildMethod(), implementationClassName, annotation.copy()));
-        out.println();
+        return constructorVisible ? Construction.DIRECT : Construction.REFLECTION;
     }
 
-    private static Map<String, String> fieldJavadoc(TypeElement typeElement, Elements utils) {
+    private Options options(Builder annotation) {
+        if (annotation.toStringMaxElements() < 1) {
+            throw new IllegalStateException(
+                    "toStringMaxElements must be at least 1 but was " + annotation.toStringMaxElements());
+        }
+        return new Options() //
+                .stages(annotation.stages()) //
+                .transferCollections(annotation.transferCollections()) //
+                .compactCollections(annotation.compactCollections()) //
+                .cacheHashCode(annotation.cacheHashCode()) //
+                .cacheToString(annotation.cacheToString()) //
+                .toStringMaxElements(annotation.toStringMaxElements()) //
+                .reusable(annotation.reusable()) //
+                .validation(annotation.validation()) //
+                .trusted(annotation.trusted()) //
+                .intern(annotation.intern()) //
+                .primitiveCollections(annotation.primitiveCollections()) //
+                .methodHandles(methodHandles());
+    }
+
+    private boolean methodHandles() {
+        String value = processingEnv.getOptions().get("methodHandles");
+        if (value != null) {
+            return Boolean.parseBoolean(value);
+        } else {
+            // MethodHandles.privateLookupIn is available from Java 9
+            return processingEnv.getSourceVersion().compareTo(SourceVersion.RELEASE_8) > 0;
+        }
+    }
+
+    private static Map<String, String> fieldJavadoc(TypeElement typeElement, ExecutableElement constructor,
+            Elements utils) {
         Map<String, String> map = new HashMap<>();
-        ExecutableElement constructor = constructor(typeElement);
         String text = utils.getDocComment(constructor);
         if (text == null || !text.contains("@param ")) {
             text = utils.getDocComment(typeElement);
@@ -357,6 +683,40 @@ public final class BuilderProcessor extends AbstractProcessor {
         return map;
     }
 
+    /**
+     * Returns the model of a type built from the {@link TypeMirror} (rather than
+     * by parsing its string form). Falls back to parsing for types whose string
+     * form is not just the qualified names of the type and its arguments.
+     */
+    // VisibleForTesting
+    static TypeModel typeModel(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && type.getAnnotationMirrors().isEmpty()) {
+            DeclaredType t = (DeclaredType) type;
+            TypeMirror enclosing = t.getEnclosingType();
+            if (enclosing.getKind() != TypeKind.DECLARED
+                    || ((DeclaredType) enclosing).getTypeArguments().isEmpty()) {
+                List<TypeModel> typeArguments = t //
+                        .getTypeArguments() //
+                        .stream() //
+                        .map(BuilderProcessor::typeModel) //
+                        .collect(Collectors.toList());
+                return new TypeModel(((TypeElement) t.asElement()).getQualifiedName().toString(), typeArguments);
+            }
+        } else if (type.getKind() == TypeKind.WILDCARD && type.getAnnotationMirrors().isEmpty()) {
+            WildcardType t = (WildcardType) type;
+            if (t.getExtendsBound() != null) {
+                return wildcard("? extends ", typeModel(t.getExtendsBound()));
+            } else if (t.getSuperBound() != null) {
+                return wildcard("? super ", typeModel(t.getSuperBound()));
+            }
+        }
+        return Generator.typeModel(type.toString());
+    }
+
+    private static TypeModel wildcard(String prefix, TypeModel bound) {
+        return new TypeModel(prefix + bound.baseType, bound.typeArguments);
+    }
+
     private static ExecutableElement constructor(TypeElement element) {
         List<ExecutableElement> list = element.getEnclosedElements().stream()
                 .filter(elem -> elem.getKind() == ElementKind.CONSTRUCTOR) //
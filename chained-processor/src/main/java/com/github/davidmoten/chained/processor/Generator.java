@@ -1,10 +1,25 @@
 package com.github.davidmoten.chained.processor;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -16,19 +31,44 @@ import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import com.github.davidmoten.chained.api.Codecs;
+import com.github.davidmoten.chained.api.DoubleArrayList;
+import com.github.davidmoten.chained.api.DoubleListBuilder;
 import com.github.davidmoten.chained.api.Helpers;
+import com.github.davidmoten.chained.api.IntArrayList;
+import com.github.davidmoten.chained.api.IntHashSet;
+import com.github.davidmoten.chained.api.IntListBuilder;
+import com.github.davidmoten.chained.api.IntSetBuilder;
+import com.github.davidmoten.chained.api.Interner;
+import com.github.davidmoten.chained.api.JsonReader;
+import com.github.davidmoten.chained.api.JsonWriter;
 import com.github.davidmoten.chained.api.ListBuilder;
+import com.github.davidmoten.chained.api.LongArrayList;
+import com.github.davidmoten.chained.api.LongHashSet;
+import com.github.davidmoten.chained.api.LongListBuilder;
+import com.github.davidmoten.chained.api.LongSetBuilder;
 import com.github.davidmoten.chained.api.MapBuilder;
+import com.github.davidmoten.chained.api.ObjDoubleHashMap;
+import com.github.davidmoten.chained.api.ObjDoubleMapBuilder;
+import com.github.davidmoten.chained.api.ObjIntHashMap;
+import com.github.davidmoten.chained.api.ObjIntMapBuilder;
+import com.github.davidmoten.chained.api.ObjLongHashMap;
+import com.github.davidmoten.chained.api.ObjLongMapBuilder;
 import com.github.davidmoten.chained.api.Preconditions;
 import com.github.davidmoten.chained.api.SetBuilder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+import com.github.davidmoten.chained.api.annotation.Validation;
 
 import jakarta.annotation.Generated;
 import jakarta.annotation.Nonnull;
@@ -38,6 +78,10 @@ final class Generator {
 
     private static final int MAX_JAVADOC_LINE_LENGTH = 80;
 
+    // upper bound on the shared toString buffer size hint so one very long result
+    // doesn't make every later buffer large
+    private static final int TO_STRING_LENGTH_HINT_MAX = 1024;
+
     private Generator() {
         // prevent instantiation
     }
@@ -53,10 +97,29 @@ final class Generator {
     private static final Map<String, String> COLLECTION_IMPLEMENTATION_TYPES = createCollectionImplementationTypes();
     private static final Map<String, CollectionType> COLLECTION_TYPES = createCollectionTypes();
 
+    // boxed element (or map value) type -> primitive specialised builder and
+    // backing collection
+    private static final Map<String, PrimitiveCollection> PRIMITIVE_LISTS = createPrimitiveLists();
+    private static final Map<String, PrimitiveCollection> PRIMITIVE_SETS = createPrimitiveSets();
+    private static final Map<String, PrimitiveCollection> PRIMITIVE_MAPS = createPrimitiveMaps();
+
+    // only the interface types can be satisfied by a compact immutable copy
+    private static final Set<String> COMPACT_COLLECTION_TYPES = new HashSet<>(Arrays.asList( //
+            List.class.getCanonicalName(), //
+            Set.class.getCanonicalName(), //
+            Map.class.getCanonicalName()));
+
     // VisibleForTesting
     static String chainedBuilder(String className, String builderClassName, List<Parameter> parameters,
             Construction construction, boolean alwaysIncludeBuildMethod, String implementationClassName,
             boolean includeCopyMethod) {
+        return chainedBuilder(className, builderClassName, parameters, construction, alwaysIncludeBuildMethod,
+                implementationClassName, includeCopyMethod, new Options()).toString();
+    }
+
+    static Output chainedBuilder(String className, String builderClassName, List<Parameter> parameters,
+            Construction construction, boolean alwaysIncludeBuildMethod, String implementationClassName,
+            boolean includeCopyMethod, Options options) {
         Output o = new Output(builderClassName);
         o.generatedComment();
         o.line("package %s;", Util.pkg(builderClassName));
@@ -64,8 +127,6 @@ final class Generator {
         o.line();
         String builderSimpleClassName = Util.simpleClassName(builderClassName);
         o.line("@%s(\"%s\")", Generated.class, "com.github.davidmoten:chained-processor");
-        o.line("public final class %s {", builderSimpleClassName);
-        o.line();
         List<Parameter> mandatory = parameters //
                 .stream() //
                 .filter(p -> !p.isOptional() && !p.isNullable()) //
@@ -74,18 +135,25 @@ final class Generator {
                 .stream() //
                 .filter(p -> p.isOptional() || p.isNullable()) //
                 .collect(Collectors.toList());
+        // a reusable builder must not allocate stage wrappers so implies single
+        // instance stages
+        boolean singleInstance = (options.stages() == Stages.SINGLE_INSTANCE || options.reusable())
+                && !mandatory.isEmpty() && !(optionalOrNullable.isEmpty() && mandatory.size() == 1);
+        o.line("public %sclass %s {", singleInstance ? "" : "final ", builderSimpleClassName);
+        o.line();
+        writeInternerField(o, className, construction, options);
         if (mandatory.isEmpty()) {
             writeSimpleBuilder(o, className, builderSimpleClassName, parameters, construction, implementationClassName,
-                    includeCopyMethod);
-            return o.toString();
+                    includeCopyMethod, options);
+            return o;
         } else if (optionalOrNullable.isEmpty() && mandatory.size() == 1) {
             Parameter p = mandatory.get(0);
             o.line("public static %s of(%s %s %s) {", o.add(className), ann(o, p), o.add(p.type()), p.name());
-            writeBuildStatement(o, className, builderSimpleClassName, parameters, construction,
-                    implementationClassName);
+            writeBuildStatement(o, className, parameters, construction, implementationClassName, options);
             o.close();
+            writeConstructorHolder(o, className, parameters, construction, options);
             o.close();
-            return o.toString();
+            return o;
         } else {
             for (Parameter p : parameters) {
                 if (p.isOptional()) {
@@ -94,111 +162,236 @@ final class Generator {
                     o.line("private %s %s;", o.add(p.type()), p.name());
                 }
             }
+            writeOwnedFields(o, parameters, options);
         }
         privateConstructor(o, builderSimpleClassName);
-        writeStaticCreators(o, builderSimpleClassName, construction);
+        writeStaticCreators(o, builderSimpleClassName, construction, singleInstance);
+        writeReusable(o, builderSimpleClassName, parameters, singleInstance, options);
         o.line();
-        writeMandatorySetter(o, mandatory.get(0));
+        writeMandatorySetter(o, mandatory.get(0), singleInstance, options);
         o.line();
         o.line("private %s build() {", o.add(className));
-        writeBuildStatement(o, className, builderSimpleClassName, parameters, construction, implementationClassName);
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, options);
         o.close();
-
-        for (int i = 0; i < mandatory.size() - 1; i++) {
-            Parameter p = mandatory.get(i);
-            String builder = builderClassName(p.name());
-            o.line();
-            o.line("public final static class %s {", builder);
-            o.line();
-            o.line("private final %s _b;", builderSimpleClassName);
+        if (options.trusted()) {
             o.line();
-            o.line("private %s(%s _b) {", builder, builderSimpleClassName);
-            o.line("this._b = _b;");
+            o.line("private %s buildUnchecked() {", o.add(className));
+            writeUncheckedBuildStatement(o, className, parameters, construction, implementationClassName, options);
             o.close();
+        }
 
-            Parameter q = mandatory.get(i + 1);
-            if (i + 1 == mandatory.size() - 1 && optionalOrNullable.isEmpty()) {
-                if (!alwaysIncludeBuildMethod) {
-                    writeBuilderForCollection(o, q, o.add(className), "_b.", "_b.build()");
-                    o.line();
-                    writeFieldJavadoc(q, o, "built " + o.add(className));
-                    o.line("public %s %s(%s %s %s) {", o.add(className), q.name(), ann(o, p), o.add(q.type()),
-                            q.name());
-                    writeNullCheck(o, q);
-                    assignBuilderField(o, q);
-                } else {
-                    writeBuilderForCollection(o, q, builder, "_b.", "this");
-                    o.line();
-                    writeFieldJavadoc(q, o);
-                    o.line("public %s %s(%s %s %s) {", builder, q.name(), ann(o, p), o.add(q.type()), q.name());
-                    writeNullCheck(o, q);
-                    assignBuilderField(o, q);
-                    o.line("return this;");
-                    o.close();
-                    o.line();
-                    o.line("public %s build() {", o.add(className));
-                }
-                o.line("return _b.build();");
-                o.close();
-                o.close();
-                writeCopyBuilder(className, parameters, construction, implementationClassName, includeCopyMethod, o);
+        // a stage follows each mandatory parameter except the last when there are
+        // no optional parameters (the last mandatory setter builds the object)
+        int numStages = optionalOrNullable.isEmpty() ? mandatory.size() - 1 : mandatory.size();
+        Stage stages = new Stage(className, mandatory, optionalOrNullable, alwaysIncludeBuildMethod, options);
+        for (int i = 0; i < numStages; i++) {
+            String builder = builderClassName(mandatory.get(i).name());
+            o.line();
+            if (singleInstance) {
+                o.line("public interface %s {", builder);
+                stages.write(o, i, MethodStyle.INTERFACE, null);
                 o.close();
-                return o.toString();
             } else {
-                String nextBuilder = builderClassName(q.name());
+                o.line("public final static class %s {", builder);
                 o.line();
-                writeFieldJavadoc(q, o);
-                o.line("public %s %s(%s %s %s) {", nextBuilder, q.name(), ann(o, p), o.add(q.type()), q.name());
-                writeNullCheck(o, q);
-                assignBuilderField(o, q);
-                o.line("return new %s(_b);", nextBuilder);
+                o.line("private final %s _b;", builderSimpleClassName);
+                o.line();
+                o.line("private %s(%s _b) {", builder, builderSimpleClassName);
+                o.line("this._b = _b;");
                 o.close();
+                stages.write(o, i, MethodStyle.CLASS, "_b");
                 o.close();
             }
         }
-        // optionals cannot be empty if get to here
-        String lastBuilder = builderClassName(mandatory.get(mandatory.size() - 1).name());
-        o.line();
-        o.line("public final static class %s {", lastBuilder);
-        o.line();
-        o.line("private final %s _b;", builderSimpleClassName);
-        o.line();
-        o.line("private %s(%s _b) {", lastBuilder, builderSimpleClassName);
-        o.line("this._b = _b;");
-        o.close();
-        for (Parameter p : optionalOrNullable) {
-            if (p.isOptional()) {
-                o.line();
-                writeFieldJavadoc(p, o);
-                o.line("public %s %s(@%s %s %s) {", lastBuilder, p.name(), Nonnull.class,
-                        o.add(toPrimitive(innerType(p.type()))), p.name());
-                writeNullCheck(o, p);
-                o.line("this._b.%s = %s.of(%s);", p.name(), o.add(outerType(p.type())), p.name());
-                o.line("return this;");
-                o.close();
-            }
+        if (singleInstance) {
+            String interfaces = mandatory.stream() //
+                    .limit(numStages) //
+                    .map(p -> builderClassName(p.name())) //
+                    .collect(Collectors.joining(", "));
             o.line();
-            writeFieldOverloadJavadoc(p, o);
-            o.line("public %s %s(%s %s %s) {", lastBuilder, p.name(), ann(o, p), o.add(p.type()), p.name());
-            if (!p.isNullable()) {
-                writeNullCheck(o, p);
+            o.line("private static final class %s extends %s implements %s {", SINGLE_INSTANCE_CLASS_NAME,
+                    builderSimpleClassName, interfaces);
+            for (int i = 0; i < numStages; i++) {
+                stages.write(o, i, MethodStyle.OVERRIDE, "super");
             }
-            assignBuilderField(o, p);
-            o.line("return this;");
             o.close();
         }
-        o.line();
-        o.line("public %s build() {", o.add(className));
-        o.line("return _b.build();");
-        o.close();
+        writeCopyBuilder(className, parameters, construction, implementationClassName, includeCopyMethod, options,
+                o);
+        writeWithMethods(className, parameters, construction, implementationClassName, includeCopyMethod, options,
+                o);
+        writeConstructorHolder(o, className, parameters, construction, options);
         o.close();
-        writeCopyBuilder(className, parameters, construction, implementationClassName, includeCopyMethod, o);
-        o.close();
-        return o.toString();
+        return o;
+    }
+
+    // the underscore prefix keeps the nested class from shadowing user types
+    private static final String SINGLE_INSTANCE_CLASS_NAME = "_Chain";
+
+    /**
+     * Determines how a method is written: as a method of a class, as an abstract
+     * interface method (no body), or as an implementation of an interface method.
+     */
+    private enum MethodStyle {
+        CLASS, INTERFACE, OVERRIDE;
+
+        /**
+         * Writes the method signature and returns true if and only if a body should
+         * follow (which must be terminated with {@code Output.close()}).
+         */
+        boolean start(Output o, String signature) {
+            if (this == INTERFACE) {
+                o.line("%s;", signature);
+                return false;
+            } else {
+                if (this == OVERRIDE) {
+                    o.line("@%s", Override.class);
+                }
+                o.line("public %s {", signature);
+                return true;
+            }
+        }
+
+        boolean javadoc() {
+            return this != OVERRIDE;
+        }
+    }
+
+    /**
+     * Writes the methods of the stages of a chained builder. Stage {@code i}
+     * follows the setting of mandatory parameter {@code i}.
+     */
+    private static final class Stage {
+
+        private final String className;
+        private final List<Parameter> mandatory;
+        private final List<Parameter> optionalOrNullable;
+        private final boolean alwaysIncludeBuildMethod;
+        private final Options options;
+
+        Stage(String className, List<Parameter> mandatory, List<Parameter> optionalOrNullable,
+                boolean alwaysIncludeBuildMethod, Options options) {
+            this.className = className;
+            this.mandatory = mandatory;
+            this.optionalOrNullable = optionalOrNullable;
+            this.alwaysIncludeBuildMethod = alwaysIncludeBuildMethod;
+            this.options = options;
+        }
+
+        /**
+         * Writes the methods of stage {@code i}.
+         * 
+         * @param b the expression that refers to the root builder (ignored for
+         *          {@link MethodStyle#INTERFACE})
+         */
+        void write(Output o, int i, MethodStyle style, String b) {
+            String builder = builderClassName(mandatory.get(i).name());
+            if (i < mandatory.size() - 1) {
+                Parameter q = mandatory.get(i + 1);
+                if (i + 1 == mandatory.size() - 1 && optionalOrNullable.isEmpty()) {
+                    if (!alwaysIncludeBuildMethod) {
+                        writeBuilderForCollection(o, q, o.add(className), b + ".", b + ".build()", style,
+                                options);
+                        o.line();
+                        if (style.javadoc()) {
+                            writeFieldJavadoc(q, o, "built " + o.add(className));
+                        }
+                        if (style.start(o, String.format("%s %s(%s %s %s)", o.add(className), q.name(), ann(o, q),
+                                o.add(q.type()), q.name()))) {
+                            writeNullCheck(o, q);
+                            assignField(o, q, b, options);
+                            o.line("return %s.build();", b);
+                            o.close();
+                        }
+                    } else {
+                        writeBuilderForCollection(o, q, builder, b + ".", "this", style, options);
+                        o.line();
+                        if (style.javadoc()) {
+                            writeFieldJavadoc(q, o);
+                        }
+                        if (style.start(o, String.format("%s %s(%s %s %s)", builder, q.name(), ann(o, q),
+                                o.add(q.type()), q.name()))) {
+                            writeNullCheck(o, q);
+                            assignField(o, q, b, options);
+                            o.line("return this;");
+                            o.close();
+                        }
+                        writeBuild(o, style, b);
+                    }
+                } else {
+                    String nextBuilder = builderClassName(q.name());
+                    o.line();
+                    if (style.javadoc()) {
+                        writeFieldJavadoc(q, o);
+                    }
+                    if (style.start(o, String.format("%s %s(%s %s %s)", nextBuilder, q.name(), ann(o, q),
+                            o.add(q.type()), q.name()))) {
+                        writeNullCheck(o, q);
+                        assignField(o, q, b, options);
+                        if (style == MethodStyle.CLASS) {
+                            o.line("return new %s(_b);", nextBuilder);
+                        } else {
+                            o.line("return this;");
+                        }
+                        o.close();
+                    }
+                }
+            } else {
+                // last mandatory parameter has been set, optionals cannot be empty if
+                // get to here
+                for (Parameter p : optionalOrNullable) {
+                    if (p.isOptional()) {
+                        o.line();
+                        if (style.javadoc()) {
+                            writeFieldJavadoc(p, o);
+                        }
+                        if (style.start(o, String.format("%s %s(@%s %s %s)", builder, p.name(), o.add(Nonnull.class),
+                                o.add(toPrimitive(p.innerType())), p.name()))) {
+                            writeNullCheck(o, p);
+                            o.line("%s.%s = %s.of(%s);", b, p.name(), o.add(p.outerType()), p.name());
+                            o.line("return this;");
+                            o.close();
+                        }
+                    }
+                    o.line();
+                    if (style.javadoc()) {
+                        writeFieldOverloadJavadoc(p, o);
+                    }
+                    if (style.start(o, String.format("%s %s(%s %s %s)", builder, p.name(), ann(o, p),
+                            o.add(p.type()), p.name()))) {
+                        if (!p.isNullable()) {
+                            writeNullCheck(o, p);
+                        }
+                        assignField(o, p, b, options);
+                        o.line("return this;");
+                        o.close();
+                    }
+                }
+                writeBuild(o, style, b);
+            }
+        }
+
+        private void writeBuild(Output o, MethodStyle style, String b) {
+            o.line();
+            if (style.start(o, String.format("%s build()", o.add(className)))) {
+                o.line("return %s.build();", b);
+                o.close();
+            }
+            if (options.trusted()) {
+                o.line();
+                if (style.javadoc()) {
+                    writeBuildUncheckedJavadoc(o);
+                }
+                if (style.start(o, String.format("%s buildUnchecked()", o.add(className)))) {
+                    o.line("return %s.buildUnchecked();", b);
+                    o.close();
+                }
+            }
+        }
     }
 
     private static void writeCopyBuilder(String className, List<Parameter> parameters, Construction construction,
-            String implementationClassName, boolean includeCopyMethod, Output o) {
+            String implementationClassName, boolean includeCopyMethod, Options options, Output o) {
         if (!includeCopyMethod || construction == Construction.INTERFACE_IMPLEMENTATION) {
             return;
         }
@@ -223,7 +416,7 @@ final class Generator {
                 o.line();
                 writeFieldJavadoc(p, o);
                 o.line("public CopyBuilder %s(%s %s %s) {", p.name(), ann(o, p),
-                        o.add(toPrimitive(innerType(p.type()))), p.name());
+                        o.add(toPrimitive(p.innerType())), p.name());
                 o.line("this.%s = %s.of(%s);", p.name(), Optional.class, p.name());
                 o.line("return this;");
                 o.close();
@@ -237,22 +430,61 @@ final class Generator {
         }
         o.line();
         o.line("public %s build() {", o.add(className));
-        String args = parameters.stream() //
+        List<String> args = parameters.stream() //
                 .map(p -> "this." + p.name()) //
-                .collect(Collectors.joining(", "));
-        if (construction == Construction.REFLECTION) {
-            o.line("return create(%s);", args);
-        } else {
-            o.line("return new %s(%s);", o.add(className), args);
-        }
+                .collect(Collectors.toList());
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, args, false, options);
         o.close();
-        if (construction == Construction.REFLECTION) {
+        o.close();
+    }
+
+    private static void writeWithMethods(String className, List<Parameter> parameters, Construction construction,
+            String implementationClassName, boolean includeCopyMethod, Options options, Output o) {
+        if (!includeCopyMethod || construction == Construction.INTERFACE_IMPLEMENTATION) {
+            return;
+        }
+        for (Parameter p : parameters) {
             o.line();
-            o.line("private static %s create(Object... args) {", o.add(className));
-            writeBuildStatement(o, className, parameters, construction, implementationClassName, "args");
+            o.line("/**");
+            o.line(" * Returns a copy of {@code _value} with {@code %s} set to the given value (other", p.name());
+            o.line(" * fields are shared, not copied) or {@code _value} if the field already equals the");
+            o.line(" * given value.");
+            o.line(" *");
+            o.line(" * @param _value object to copy");
+            o.line(" * @param %s new value of the field", p.name());
+            o.line(" * @return object with the new field value");
+            o.line(" */");
+            o.line("public static %s %s(@%s %s _value, %s %s %s) {", o.add(className), withMethodName(p),
+                    Nonnull.class, o.add(className), ann(o, p), o.add(p.type()), p.name());
+            if (!p.isNullable() && !p.isPrimitive()) {
+                writeNullCheck(o, p);
+            }
+            o.line("if (%s) {", equalsExpression(o, p, "_value." + p.name() + "()", p.name()));
+            o.line("return _value;");
+            o.close();
+            List<String> args = parameters.stream() //
+                    .map(x -> x == p ? withArgument(o, x, options) : "_value." + x.name() + "()") //
+                    .collect(Collectors.toList());
+            writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true,
+                    options);
             o.close();
         }
-        o.close();
+    }
+
+    private static String withMethodName(Parameter p) {
+        return "with" + upperFirst(p.name());
+    }
+
+    /**
+     * Returns the argument for the new value of a field, wrapping a collection in
+     * the same way as {@code build()} does.
+     */
+    private static String withArgument(Output o, Parameter p, Options options) {
+        if (COLLECTION_TYPES.containsKey(p.outerType())) {
+            return String.format("%s.%s(%s)", o.add(Helpers.class), immutableMethod(p, options), p.name());
+        } else {
+            return p.name();
+        }
     }
 
     private static Map<String, CollectionType> createCollectionTypes() {
@@ -272,7 +504,7 @@ final class Generator {
     }
 
     private static Optional<String> collectionImplementationType(Parameter p) {
-        TypeModel tm = typeModel(p.type());
+        TypeModel tm = p.typeModel();
         return Optional.ofNullable(COLLECTION_IMPLEMENTATION_TYPES.get(tm.baseType));
     }
 
@@ -320,9 +552,14 @@ final class Generator {
     }
 
     private static void writeStaticCreators(Output o, String builderSimpleClassName, Construction construction) {
+        writeStaticCreators(o, builderSimpleClassName, construction, false);
+    }
+
+    private static void writeStaticCreators(Output o, String builderSimpleClassName, Construction construction,
+            boolean singleInstance) {
         o.line();
         o.line("public static %s builder() {", builderSimpleClassName);
-        o.line("return new %s();", builderSimpleClassName);
+        o.line("return new %s();", singleInstance ? SINGLE_INSTANCE_CLASS_NAME : builderSimpleClassName);
         o.close();
         if (construction != Construction.INTERFACE_IMPLEMENTATION) {
             o.line();
@@ -355,6 +592,63 @@ final class Generator {
         }
     }
 
+    private static void writeReusable(Output o, String builderSimpleClassName, List<Parameter> parameters,
+            boolean singleInstance, Options options) {
+        if (!options.reusable()) {
+            return;
+        }
+        o.line();
+        o.line("private static final %s<%s> REUSABLE = %s.withInitial(%s::new);", ThreadLocal.class,
+                builderSimpleClassName, ThreadLocal.class,
+                singleInstance ? SINGLE_INSTANCE_CLASS_NAME : builderSimpleClassName);
+        o.line();
+        o.line("/**");
+        o.line(" * Returns the builder owned by the current thread after calling {@link #reset()}.");
+        o.line(" * The object returned by a previous call on the same thread must no longer be in");
+        o.line(" * use.");
+        o.line(" *");
+        o.line(" * @return the reset builder owned by the current thread");
+        o.line(" */");
+        o.line("public static %s reusable() {", builderSimpleClassName);
+        o.line("return REUSABLE.get().reset();");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Clears all values so that the builder can be used to build another object.");
+        o.line(" * Collections owned by the builder are cleared and reused (the built object");
+        o.line(" * holds a copy).");
+        o.line(" *");
+        o.line(" * @return this");
+        o.line(" */");
+        o.line("public %s reset() {", builderSimpleClassName);
+        for (Parameter p : parameters) {
+            if (p.isOptional()) {
+                o.line("this.%s = %s.empty();", p.name(), o.add(p.outerType()));
+            } else if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+                o.line("this.%s = %s;", p.name(), p.type().equals("boolean") ? "false" : "0");
+            } else if (isReusableCollection(p, options)) {
+                o.line("if (this.%s != null) {", p.name());
+                o.line("this.%s.clear();", p.name());
+                o.close();
+            } else {
+                o.line("this.%s = null;", p.name());
+            }
+        }
+        o.line("return this;");
+        o.close();
+    }
+
+    private static boolean isReusableCollection(Parameter p, Options options) {
+        // the builder owns the collection of a mandatory field (unless transferred)
+        // and build() copies it out, nullable fields must be null after reset
+        return !options.transferCollections() && !p.isNullable() && isCompactCollection(p, options);
+    }
+
+    private static boolean isCompactCollection(Parameter p, Options options) {
+        return (options.compactCollections() || options.reusable())
+                && COMPACT_COLLECTION_TYPES.contains(p.outerType());
+    }
+
     private static void privateConstructor(Output o, String simpleClassName) {
         o.line();
         o.line("private %s() {", simpleClassName);
@@ -362,15 +656,26 @@ final class Generator {
         o.close();
     }
 
-    private static void writeMandatorySetter(Output o, Parameter p) {
+    private static void writeMandatorySetter(Output o, Parameter p, boolean singleInstance, Options options) {
         String nextBuilder = builderClassName(p.name());
         writeFieldJavadoc(p, o);
         o.line("public %s %s(%s %s %s) {", nextBuilder, p.name(), ann(o, p), o.add(p.type()), p.name());
         if (!p.isNullable()) {
             writeNullCheck(o, p);
         }
-        o.line("this.%s = %s;", p.name(), p.name());
-        o.line("return new %s(this);", nextBuilder);
+        if (options.reusable()) {
+            // a reusable builder must own its collections because reset() clears them
+            assignField(o, p, "this", options);
+        } else {
+            o.line("this.%s = %s;", p.name(), p.name());
+        }
+        if (singleInstance) {
+            // builder() only ever returns an instance of the subclass that implements
+            // all stages
+            o.line("return (%s) this;", nextBuilder);
+        } else {
+            o.line("return new %s(this);", nextBuilder);
+        }
         o.close();
     }
 
@@ -390,47 +695,60 @@ final class Generator {
 
     private static void writeSimpleBuilder(Output o, String className, String builderSimpleClassName,
             List<Parameter> parameters, Construction construction, String implementationClassName,
-            boolean includeCopyMethod) {
+            boolean includeCopyMethod, Options options) {
         for (Parameter p : parameters) {
             if (p.isOptional()) {
-                o.line("private %s %s = %s.empty();", o.add(p.type()), p.name(), o.add(outerType(p.type())));
+                o.line("private %s %s = %s.empty();", o.add(p.type()), p.name(), o.add(p.outerType()));
             } else {
                 o.line("private %s %s;", o.add(p.type()), p.name());
             }
         }
+        writeOwnedFields(o, parameters, options);
         privateConstructor(o, builderSimpleClassName);
 
         writeStaticCreators(o, builderSimpleClassName, construction);
+        writeReusable(o, builderSimpleClassName, parameters, false, options);
 
         for (Parameter p : parameters) {
             if (p.isOptional()) {
-                String wrappedType = innerType(p.type());
+                String wrappedType = p.innerType();
                 wrappedType = toPrimitive(wrappedType);
                 o.line();
                 writeFieldJavadoc(p, o);
                 o.line("public %s %s(%s %s %s) {", builderSimpleClassName, p.name(), ann(o, p), o.add(wrappedType),
                         p.name());
                 writeNullCheck(o, p);
-                o.line("this.%s = %s.of(%s);", p.name(), o.add(outerType(p.type())), p.name());
+                o.line("this.%s = %s.of(%s);", p.name(), o.add(p.outerType()), p.name());
                 o.line("return this;");
                 o.close();
             }
-            writeBuilderForCollection(o, p, builderSimpleClassName, "this", "this");
+            writeBuilderForCollection(o, p, builderSimpleClassName, "this.", "this", options);
             o.line();
             writeFieldOverloadJavadoc(p, o);
             o.line("public %s %s(%s %s %s) {", builderSimpleClassName, p.name(), ann(o, p), o.add(p.type()), p.name());
             if (!p.isNullable()) {
                 writeNullCheck(o, p);
             }
-            assignField(o, p);
+            assignField(o, p, "this", options);
             o.line("return this;");
             o.close();
         }
         o.line();
         o.line("public %s build() {", o.add(className));
-        writeBuildStatement(o, className, builderSimpleClassName, parameters, construction, implementationClassName);
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, options);
         o.close();
-        writeCopyBuilder(className, parameters, construction, implementationClassName, includeCopyMethod, o);
+        if (options.trusted()) {
+            o.line();
+            writeBuildUncheckedJavadoc(o);
+            o.line("public %s buildUnchecked() {", o.add(className));
+            writeUncheckedBuildStatement(o, className, parameters, construction, implementationClassName, options);
+            o.close();
+        }
+        writeCopyBuilder(className, parameters, construction, implementationClassName, includeCopyMethod, options,
+                o);
+        writeWithMethods(className, parameters, construction, implementationClassName, includeCopyMethod, options,
+                o);
+        writeConstructorHolder(o, className, parameters, construction, options);
         o.close();
     }
 
@@ -488,9 +806,9 @@ final class Generator {
     }
 
     private static void writeJavadocLines(Output o, List<String> lines) {
-        lines.stream() //
-                .map(line -> " * " + line) //
-                .forEach(o::line);
+        // javadoc text is an argument (not the format) so that it is not parsed as a
+        // template
+        lines.forEach(line -> o.line(" * %s", line));
     }
 
     private static List<String> wrapJavadoc(String text, int nextLineIndent) {
@@ -552,57 +870,174 @@ final class Generator {
     }
 
     static void writeBuilderForCollection(Output o, Parameter p, String builderSimpleClassName,
-            String fieldPrefix, String returnExpression) {
-        writeBuilderForMap(o, p, builderSimpleClassName, fieldPrefix, returnExpression);
-        writeBuilderForList(o, p, builderSimpleClassName, fieldPrefix, returnExpression);
-        writeBuilderForSet(o, p, builderSimpleClassName, fieldPrefix, returnExpression);
+            String fieldPrefix, String returnExpression, Options options) {
+        writeBuilderForCollection(o, p, builderSimpleClassName, fieldPrefix, returnExpression, MethodStyle.CLASS,
+                options);
+    }
+
+    private static void writeBuilderForCollection(Output o, Parameter p, String builderSimpleClassName,
+            String fieldPrefix, String returnExpression, MethodStyle style, Options options) {
+        writeBuilderForMap(o, p, builderSimpleClassName, fieldPrefix, returnExpression, style, options);
+        writeBuilderForList(o, p, builderSimpleClassName, fieldPrefix, returnExpression, style, options);
+        writeBuilderForSet(o, p, builderSimpleClassName, fieldPrefix, returnExpression, style, options);
     }
 
     private static void writeBuilderForMap(Output o, Parameter p, String builderSimpleClassName, String fieldPrefix,
-            String returnExpression) {
-        TypeModel tm = typeModel(p.type());
+            String returnExpression, MethodStyle style, Options options) {
+        TypeModel tm = p.typeModel();
         if (tm.baseType.equals("java.util.Map") && tm.typeArguments.size() == 2) {
             o.line();
             String keyType = tm.typeArguments.get(0).render();
             String valueType = tm.typeArguments.get(1).render();
-            o.line("public %s<%s, %s, %s> %s() {", MapBuilder.class, o.add(keyType), o.add(valueType),
-                    builderSimpleClassName, p.name());
-            o.line("%s%s = %s%s == null ? new %s<>() : %s%s;", fieldPrefix, p.name(), fieldPrefix, p.name(),
-                    collectionImplementationType(p).orElse(LinkedHashMap.class.getCanonicalName()), fieldPrefix,
-                    p.name());
-            o.line("return new %s<>(() -> %s, %s%s);", MapBuilder.class, returnExpression, fieldPrefix, p.name());
-            o.close();
+            PrimitiveCollection primitive = options.primitiveCollections() ? PRIMITIVE_MAPS.get(valueType) : null;
+            String signature;
+            if (primitive == null) {
+                signature = String.format("%s<%s, %s, %s> %s()", o.add(MapBuilder.class), o.add(keyType),
+                        o.add(valueType), builderSimpleClassName, p.name());
+            } else {
+                signature = String.format("%s<%s, %s> %s()", o.add(primitive.builder), o.add(keyType),
+                        builderSimpleClassName, p.name());
+            }
+            if (style.start(o, signature)) {
+                writeCreateCollection(o, p, fieldPrefix, primitive,
+                        collectionImplementationType(p).orElse(LinkedHashMap.class.getCanonicalName()), options);
+                o.line("return new %s<>(() -> %s, %s%s);", primitive == null ? MapBuilder.class : primitive.builder,
+                        returnExpression, fieldPrefix, p.name());
+                o.close();
+            }
         }
     }
 
     private static void writeBuilderForList(Output o, Parameter p, String builderSimpleClassName, String fieldPrefix,
-            String returnExpression) {
-        TypeModel tm = typeModel(p.type());
+            String returnExpression, MethodStyle style, Options options) {
+        TypeModel tm = p.typeModel();
         if (tm.baseType.equals("java.util.List") && tm.typeArguments.size() == 1) {
-            o.line();
-            String genericType = tm.typeArguments.get(0).render();
-            o.line("public %s<%s, %s> %s() {", ListBuilder.class, o.add(genericType), builderSimpleClassName, p.name());
-            o.line("%s%s = %s%s == null ? new %s<>() : %s%s;", fieldPrefix, p.name(), fieldPrefix, p.name(),
-                    collectionImplementationType(p).orElse(ArrayList.class.getCanonicalName()), fieldPrefix, p.name());
-            o.line("return new %s<>(() -> %s, %s%s);", ListBuilder.class, returnExpression, fieldPrefix, p.name());
-            o.close();
+            writeBuilderForSingleTypeCollection(o, p, builderSimpleClassName, fieldPrefix, returnExpression, style,
+                    tm.typeArguments.get(0).render(), ListBuilder.class,
+                    options.primitiveCollections() ? PRIMITIVE_LISTS : Collections.emptyMap(), ArrayList.class,
+                    options);
         }
     }
 
     private static void writeBuilderForSet(Output o, Parameter p, String builderSimpleClassName, String fieldPrefix,
-            String returnExpression) {
-        TypeModel tm = typeModel(p.type());
+            String returnExpression, MethodStyle style, Options options) {
+        TypeModel tm = p.typeModel();
         if (tm.baseType.equals("java.util.Set") && tm.typeArguments.size() == 1) {
-            o.line();
-            String genericType = tm.typeArguments.get(0).render();
-            o.line("public %s<%s, %s> %s() {", SetBuilder.class, o.add(genericType), builderSimpleClassName, p.name());
-            o.line("%s%s = %s%s == null ? new %s<>() : %s%s;", fieldPrefix, p.name(), fieldPrefix, p.name(),
-                    collectionImplementationType(p).orElse(HashSet.class.getCanonicalName()), fieldPrefix, p.name());
-            o.line("return new %s<>(() -> %s, %s%s);", SetBuilder.class, returnExpression, fieldPrefix, p.name());
+            writeBuilderForSingleTypeCollection(o, p, builderSimpleClassName, fieldPrefix, returnExpression, style,
+                    tm.typeArguments.get(0).render(), SetBuilder.class,
+                    options.primitiveCollections() ? PRIMITIVE_SETS : Collections.emptyMap(), HashSet.class,
+                    options);
+        }
+    }
+
+    private static void writeBuilderForSingleTypeCollection(Output o, Parameter p, String builderSimpleClassName,
+            String fieldPrefix, String returnExpression, MethodStyle style, String genericType,
+            Class<?> builderClass, Map<String, PrimitiveCollection> primitives, Class<?> defaultImplementation,
+            Options options) {
+        o.line();
+        // use a primitive specialisation for boxed element types to avoid boxing on add
+        PrimitiveCollection primitive = primitives.get(genericType);
+        String signature;
+        if (primitive == null) {
+            signature = String.format("%s<%s, %s> %s()", o.add(builderClass), o.add(genericType),
+                    builderSimpleClassName, p.name());
+        } else {
+            signature = String.format("%s<%s> %s()", o.add(primitive.builder), builderSimpleClassName, p.name());
+        }
+        if (style.start(o, signature)) {
+            writeCreateCollection(o, p, fieldPrefix, primitive,
+                    collectionImplementationType(p).orElse(defaultImplementation.getCanonicalName()), options);
+            o.line("return new %s<>(() -> %s, %s%s);", primitive == null ? builderClass : primitive.builder,
+                    returnExpression, fieldPrefix, p.name());
+            o.close();
+        }
+    }
+
+    private static void writeCreateCollection(Output o, Parameter p, String fieldPrefix, PrimitiveCollection primitive,
+            String implementation, Options options) {
+        String creation;
+        if (primitive == null) {
+            creation = String.format("new %s<>()", o.add(implementation));
+        } else if (primitive.collection.getTypeParameters().length == 0) {
+            creation = String.format("new %s()", o.add(primitive.collection));
+        } else {
+            creation = String.format("new %s<>()", o.add(primitive.collection));
+        }
+        if (options.transferCollections()) {
+            o.line("if (%s%s == null) {", fieldPrefix, p.name());
+            o.line("%s%s = %s;", fieldPrefix, p.name(), creation);
+            o.line("%s_%sOwned = true;", fieldPrefix, p.name());
+            o.close();
+            o.line("else if (!%s_%sOwned) {", fieldPrefix, p.name());
+            // the collection was transferred by the caller (and may be immutable) so
+            // copy it before adding to it
+            o.line("%s _copy = %s;", o.add(p.type()), creation);
+            o.line("_copy.%s(%s%s);", p.typeModel().isMap() ? "putAll" : "addAll", fieldPrefix, p.name());
+            o.line("%s%s = _copy;", fieldPrefix, p.name());
+            o.line("%s_%sOwned = true;", fieldPrefix, p.name());
             o.close();
+        } else {
+            o.line("%s%s = %s%s == null ? %s : %s%s;", fieldPrefix, p.name(), fieldPrefix, p.name(), creation,
+                    fieldPrefix, p.name());
+        }
+    }
+
+    /**
+     * Writes a flag per collection field that records whether the builder created
+     * the collection (and so may add to it) or adopted it from the caller.
+     */
+    private static void writeOwnedFields(Output o, List<Parameter> parameters, Options options) {
+        if (options.transferCollections()) {
+            for (Parameter p : parameters) {
+                if (hasCollectionBuilder(p)) {
+                    o.line("private boolean _%sOwned;", p.name());
+                }
+            }
+        }
+    }
+
+    private static boolean hasCollectionBuilder(Parameter p) {
+        TypeModel tm = p.typeModel();
+        return tm.baseType.equals("java.util.Map") && tm.typeArguments.size() == 2
+                || (tm.baseType.equals("java.util.List") || tm.baseType.equals("java.util.Set"))
+                        && tm.typeArguments.size() == 1;
+    }
+
+    private static final class PrimitiveCollection {
+        final Class<?> builder;
+        final Class<?> collection;
+
+        PrimitiveCollection(Class<?> builder, Class<?> collection) {
+            this.builder = builder;
+            this.collection = collection;
         }
     }
 
+    private static Map<String, PrimitiveCollection> createPrimitiveLists() {
+        Map<String, PrimitiveCollection> m = new HashMap<>();
+        m.put(Integer.class.getCanonicalName(), new PrimitiveCollection(IntListBuilder.class, IntArrayList.class));
+        m.put(Long.class.getCanonicalName(), new PrimitiveCollection(LongListBuilder.class, LongArrayList.class));
+        m.put(Double.class.getCanonicalName(),
+                new PrimitiveCollection(DoubleListBuilder.class, DoubleArrayList.class));
+        return m;
+    }
+
+    private static Map<String, PrimitiveCollection> createPrimitiveSets() {
+        Map<String, PrimitiveCollection> m = new HashMap<>();
+        m.put(Integer.class.getCanonicalName(), new PrimitiveCollection(IntSetBuilder.class, IntHashSet.class));
+        m.put(Long.class.getCanonicalName(), new PrimitiveCollection(LongSetBuilder.class, LongHashSet.class));
+        return m;
+    }
+
+    private static Map<String, PrimitiveCollection> createPrimitiveMaps() {
+        Map<String, PrimitiveCollection> m = new HashMap<>();
+        m.put(Integer.class.getCanonicalName(), new PrimitiveCollection(ObjIntMapBuilder.class, ObjIntHashMap.class));
+        m.put(Long.class.getCanonicalName(), new PrimitiveCollection(ObjLongMapBuilder.class, ObjLongHashMap.class));
+        m.put(Double.class.getCanonicalName(),
+                new PrimitiveCollection(ObjDoubleMapBuilder.class, ObjDoubleHashMap.class));
+        return m;
+    }
+
     // VisibleForTesting
     static TypeModel typeModel(String type) {
         int i = type.indexOf("<");
@@ -668,10 +1103,16 @@ final class Generator {
         }
     }
 
-    private static void assignField(Output o, Parameter p, String variable) {
-        String outerType = outerType(p.type());
+    private static void assignField(Output o, Parameter p, String variable, Options options) {
+        String outerType = p.outerType();
         CollectionType collectionType = COLLECTION_TYPES.get(outerType);
-        if (collectionType == CollectionType.MAP) {
+        if (options.transferCollections()) {
+            // the builder takes ownership of the collection (no copy)
+            o.line("%s.%s = %s;", variable, p.name(), p.name());
+            if (hasCollectionBuilder(p)) {
+                o.line("%s._%sOwned = false;", variable, p.name());
+            }
+        } else if (collectionType == CollectionType.MAP) {
             setCollectionField(o, p, variable, LinkedHashMap.class);
         } else if (collectionType == CollectionType.LIST) {
             setCollectionField(o, p, variable, ArrayList.class);
@@ -697,66 +1138,197 @@ final class Generator {
         o.left().left().left();
     }
 
-    private static void assignField(Output o, Parameter p) {
-        assignField(o, p, "this");
+    private static void writeBuildStatement(Output o, String className, List<Parameter> parameters,
+            Construction construction, String implementationClassName, Options options) {
+        List<String> args = parameters.stream() //
+                .map(x -> String.format("%s.%s(%s)", o.add(Helpers.class), immutableMethod(x, options), x.name())) //
+                .collect(Collectors.toList());
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true, options);
+    }
+
+    /**
+     * Writes a build statement that passes the fields as is (without unmodifiable
+     * wrappers) and, for interfaces, creates the implementation without checks.
+     */
+    private static void writeUncheckedBuildStatement(Output o, String className, List<Parameter> parameters,
+            Construction construction, String implementationClassName, Options options) {
+        List<String> args = parameters.stream() //
+                .map(x -> options.reusable() && isCompactCollection(x, options)
+                        // the reusable builder clears its collections so they must still be copied
+                        ? String.format("%s.compact(%s)", o.add(Helpers.class), x.name())
+                        : x.name()) //
+                .collect(Collectors.toList());
+        if (construction == Construction.INTERFACE_IMPLEMENTATION) {
+            o.line("return %s.createTrusted(%s);", o.add(implementationClassName), joinArguments(args, true));
+        } else {
+            writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true, options);
+        }
     }
 
-    private static void assignBuilderField(Output o, Parameter p) {
-        assignField(o, p, "_b");
+    private static void writeBuildUncheckedJavadoc(Output o) {
+        o.line("/**");
+        o.line(" * Builds the object without wrapping collections in unmodifiable views and,");
+        o.line(" * for interfaces, without the null checks and {@code @Check} method of the");
+        o.line(" * implementation (which are run only when assertions are enabled). The built");
+        o.line(" * object may share mutable collections with this builder. Only use when the");
+        o.line(" * values are already known to be valid.");
+        o.line(" *");
+        o.line(" * @return built object");
+        o.line(" */");
     }
 
-    private static void writeBuildStatement(Output o, String className, String builderSimpleClassName,
-            List<Parameter> parameters, Construction construction, String implementationClassName) {
-        String args = parameters.stream()
-                .map(x -> String.format("\n%s%s.unmodifiable(%s)", repeat("    ", 4), o.add(Helpers.class), x.name())) //
-                .collect(Collectors.joining(","));
-        writeBuildStatement(o, className, parameters, construction, implementationClassName, args);
+    private static String immutableMethod(Parameter p, Options options) {
+        if (isCompactCollection(p, options)) {
+            return "compact";
+        } else {
+            return "unmodifiable";
+        }
     }
 
     private static void writeBuildStatement(Output o, String className, List<Parameter> parameters,
-            Construction construction, String implementationClassName, String args) {
+            Construction construction, String implementationClassName, List<String> args, boolean multiline,
+            Options options) {
+        // interfaces are interned by the create methods of the implementation
+        boolean intern = options.intern() && construction != Construction.INTERFACE_IMPLEMENTATION;
+        String internStart = intern ? INTERNER + ".intern(" : "";
+        String internEnd = intern ? ")" : "";
         if (construction == Construction.DIRECT) {
-            o.line("return new %s(%s);", o.add(className), args);
+            o.line("return %snew %s(%s)%s;", internStart, o.add(className), joinArguments(args, multiline),
+                    internEnd);
+        } else if (construction == Construction.REFLECTION && options.methodHandles()) {
+            // invokeExact requires the static types of the arguments to match the
+            // constructor parameter types exactly
+            List<String> castArgs = new ArrayList<>();
+            for (int i = 0; i < args.size(); i++) {
+                castArgs.add(String.format("(%s) %s", o.add(parameters.get(i).outerType()), args.get(i)));
+            }
+            o.line("// use cached method handle to call non-visible constructor");
+            o.line("try {");
+            o.line("return %s(%s) %s.CONSTRUCTOR.invokeExact(%s)%s;", internStart, o.add(className),
+                    CONSTRUCTOR_HOLDER_CLASS_NAME, joinArguments(castArgs, multiline), internEnd);
+            o.close();
+            o.line("catch (%s | %s e) {", RuntimeException.class, Error.class);
+            o.line("throw e;");
+            o.close();
+            o.line("catch (%s e) {", Throwable.class);
+            o.line("throw new %s(e);", RuntimeException.class);
+            o.close();
         } else if (construction == Construction.REFLECTION) {
-            String parameterClassNames = parameters.stream().map(x -> o.add(baseType(x.type())) + ".class")
-                    .collect(Collectors.joining(", "));
-            o.line("// use reflection to call non-visible constructor");
+            o.line("// use cached reflective constructor to call non-visible constructor");
             o.line("try {");
-            o.line("%s<%s> _c = %s.class", Constructor.class, o.add(className), o.add(className));
-            o.right().right();
-            o.line(".getDeclaredConstructor(%s);", parameterClassNames);
-            o.left().left();
-            o.line("_c.setAccessible(true);");
-            o.line("return _c.newInstance(%s);", args);
+            o.line("return %s%s.CONSTRUCTOR.newInstance(%s)%s;", internStart, CONSTRUCTOR_HOLDER_CLASS_NAME,
+                    joinArguments(args, multiline), internEnd);
             o.close();
-            o.line("catch (%s", InvocationTargetException.class);
-            o.right().right();
-            o.line("| %s", NoSuchMethodException.class);
-            o.line("| %s", InstantiationException.class);
-            o.line("| %s e) {", IllegalAccessException.class);
-            o.left().left();
+            o.line("catch (%s e) {", InvocationTargetException.class);
+            // rethrow what the constructor threw, as the method handle path does
+            o.line("%s cause = e.getCause();", Throwable.class);
+            o.line("if (cause instanceof %s) {", RuntimeException.class);
+            o.line("throw (%s) cause;", RuntimeException.class);
+            o.close();
+            o.line("else if (cause instanceof %s) {", Error.class);
+            o.line("throw (%s) cause;", Error.class);
+            o.close();
+            o.line("else {");
+            o.line("throw new %s(cause);", RuntimeException.class);
+            o.close();
+            o.close();
+            o.line("catch (%s | %s e) {", InstantiationException.class, IllegalAccessException.class);
             o.line("throw new %s(e);", RuntimeException.class);
             o.close();
         } else if (construction == Construction.INTERFACE_IMPLEMENTATION) {
-            o.line("return %s.create(%s);", o.add(implementationClassName), args);
+            o.line("return %s.create(%s);", o.add(implementationClassName), joinArguments(args, multiline));
         }
     }
 
-    private static String baseType(String type) {
-        int i = type.indexOf("<");
-        if (i == -1) {
-            return type;
+    private static String joinArguments(List<String> args, boolean multiline) {
+        if (multiline) {
+            return args.stream() //
+                    .map(x -> "\n" + repeat("    ", 4) + x) //
+                    .collect(Collectors.joining(","));
         } else {
-            return type.substring(0, i);
+            return String.join(", ", args);
+        }
+    }
+
+    private static final String CONSTRUCTOR_HOLDER_CLASS_NAME = "ConstructorHolder";
+
+    private static final String INTERNER = "INTERNER";
+
+    /**
+     * Writes the field holding the interner shared by all generated classes of the
+     * annotated type if built objects are interned by this class.
+     */
+    private static void writeInternerField(Output o, String className, Construction construction,
+            Options options) {
+        if (options.intern() && construction != Construction.INTERFACE_IMPLEMENTATION) {
+            o.line("private static final %s<%s> %s = %s.forClass(%s.class);", Interner.class, o.add(className),
+                    INTERNER, Interner.class, o.add(className));
+            o.line();
+        }
+    }
+
+    /**
+     * Writes a holder class that resolves a non-visible constructor once (lazily
+     * on first use) so that the reflective lookup and access check are not
+     * repeated on every build.
+     */
+    private static void writeConstructorHolder(Output o, String className, List<Parameter> parameters,
+            Construction construction, Options options) {
+        if (construction != Construction.REFLECTION) {
+            return;
+        }
+        String parameterClassNames = parameters.stream() //
+                .map(x -> o.add(x.outerType()) + ".class") //
+                .collect(Collectors.joining(", "));
+        o.line();
+        o.line("private static final class %s {", CONSTRUCTOR_HOLDER_CLASS_NAME);
+        o.line();
+        if (options.methodHandles()) {
+            o.line("static final %s CONSTRUCTOR = constructor();", MethodHandle.class);
+            o.line();
+            o.line("private static %s constructor() {", MethodHandle.class);
+            o.line("try {");
+            o.line("return %s.privateLookupIn(%s.class, %s.lookup())", MethodHandles.class, o.add(className),
+                    MethodHandles.class);
+            o.right().right();
+            o.line(".findConstructor(%s.class, %s.methodType(void.class%s));", o.add(className), MethodType.class,
+                    parameterClassNames.isEmpty() ? "" : ", " + parameterClassNames);
+            o.left().left();
+            o.close();
+            o.line("catch (%s | %s e) {", NoSuchMethodException.class, IllegalAccessException.class);
+        } else {
+            o.line("static final %s<%s> CONSTRUCTOR = constructor();", Constructor.class, o.add(className));
+            o.line();
+            o.line("private static %s<%s> constructor() {", Constructor.class, o.add(className));
+            o.line("try {");
+            o.line("%s<%s> c = %s.class.getDeclaredConstructor(%s);", Constructor.class, o.add(className),
+                    o.add(className), parameterClassNames);
+            o.line("c.setAccessible(true);");
+            o.line("return c;");
+            o.close();
+            o.line("catch (%s e) {", NoSuchMethodException.class);
         }
+        o.line("throw new %s(e);", IllegalStateException.class);
+        o.close();
+        o.close();
+        o.close();
     }
 
     static final class Output {
 
-        private static final String IMPORTS_HERE = "<<IMPORTS_HERE>>";
+        // parsed line templates shared by all outputs. Formats are meant to be literals
+        // in this class but the size is capped so that a long lived compiler daemon
+        // cannot accumulate computed formats
+        private static final Map<String, String[]> TEMPLATES = new ConcurrentHashMap<>();
+        private static final int MAX_TEMPLATES = 4096;
+        private static final int WRITE_CHUNK_SIZE = 8192;
+
         private final Imports imports;
-        private final StringBuilder b = new StringBuilder();
+        private final Map<String, String> renderedTypes = new HashMap<>();
+        private final StringBuilder b = new StringBuilder(4096);
         private boolean firstLine = true;
+        // position in b where the imports are written, -1 if not requested
+        private int importsPosition = -1;
 
         public Output(String ownerClassName) {
             this.imports = new Imports(ownerClassName);
@@ -783,7 +1355,11 @@ final class Generator {
         }
 
         void importsHere() {
-            line(IMPORTS_HERE);
+            if (!firstLine) {
+                b.append('\n');
+            }
+            importsPosition = b.length();
+            firstLine = false;
         }
 
         Output right() {
@@ -800,24 +1376,43 @@ final class Generator {
         }
 
         String add(String type) {
-            return add(typeModel(type));
-        }
-
-        private String add(TypeModel tm) {
-            return tm.render(x -> imports.add(x));
+            // the rendering of a type never changes once its classes have been added to
+            // the imports so is cached
+            return renderedTypes.computeIfAbsent(type, t -> typeModel(t).render(imports::add));
         }
 
+        /**
+         * Appends a line (preceded by a newline and the current indent). The only
+         * supported format specifiers are {@code %s} and {@code %%}. Class arguments
+         * are added to the imports and rendered as their (possibly simple) name.
+         * 
+         * @param fmt  format
+         * @param args arguments
+         */
         void line(String fmt, Object... args) {
-            Object[] args2 = // copy args
-                    new Object[args.length];
-            for (int i = 0; i < args.length; i++) {
-                Object o = args[i];
-                if (o instanceof Class) {
-                    o = imports.add((Class<?>) o);
+            if (!firstLine) {
+                b.append('\n');
+            }
+            b.append(indent);
+            String[] template = template(fmt);
+            // template alternates literal text and argument slots
+            int arg = 0;
+            for (int i = 0; i < template.length; i++) {
+                if (i % 2 == 0) {
+                    b.append(template[i]);
+                } else {
+                    Object o = args[arg++];
+                    if (o instanceof Class) {
+                        b.append(imports.add((Class<?>) o));
+                    } else {
+                        b.append(o);
+                    }
                 }
-                args2[i] = o;
             }
-            b.append(String.format((firstLine ? "" : "\n") + indent + fmt, args2));
+            if (arg != args.length) {
+                throw new IllegalArgumentException(
+                        "format has " + arg + " arguments but " + args.length + " were supplied: " + fmt);
+            }
             if (fmt.endsWith("{")) {
                 right();
             }
@@ -829,22 +1424,104 @@ final class Generator {
             line("}");
         }
 
-        @Override
-        public String toString() {
-            String s = b.toString();
+        private static String[] template(String fmt) {
+            String[] template = TEMPLATES.get(fmt);
+            if (template == null) {
+                template = parseTemplate(fmt);
+                if (TEMPLATES.size() < MAX_TEMPLATES) {
+                    TEMPLATES.putIfAbsent(fmt, template);
+                }
+            }
+            return template;
+        }
+
+        private static String[] parseTemplate(String fmt) {
+            List<String> list = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < fmt.length()) {
+                char c = fmt.charAt(i);
+                if (c != '%') {
+                    literal.append(c);
+                    i++;
+                } else if (i + 1 < fmt.length() && fmt.charAt(i + 1) == '%') {
+                    literal.append('%');
+                    i += 2;
+                } else if (i + 1 < fmt.length() && fmt.charAt(i + 1) == 's') {
+                    list.add(literal.toString());
+                    // argument slot
+                    list.add(null);
+                    literal.setLength(0);
+                    i += 2;
+                } else {
+                    throw new IllegalArgumentException("unsupported format specifier at index " + i + ": " + fmt);
+                }
+            }
+            list.add(literal.toString());
+            return list.toArray(new String[0]);
+        }
+
+        /**
+         * Writes the source code (with imports) to the writer without creating the
+         * full text as a string.
+         * 
+         * @param out destination
+         * @throws IOException if thrown by the writer
+         */
+        void writeTo(Writer out) throws IOException {
+            char[] chunk = new char[WRITE_CHUNK_SIZE];
+            if (importsPosition == -1) {
+                write(out, chunk, 0, b.length());
+            } else {
+                write(out, chunk, 0, importsPosition);
+                out.write(importsCode());
+                write(out, chunk, afterImportsPosition(), b.length());
+            }
+        }
+
+        private void write(Writer out, char[] chunk, int start, int end) throws IOException {
+            int i = start;
+            while (i < end) {
+                int n = Math.min(chunk.length, end - i);
+                b.getChars(i, i + n, chunk, 0);
+                out.write(chunk, 0, n);
+                i += n;
+            }
+        }
+
+        private String importsCode() {
             String code = imports.toCode();
-            final String code2;
-            if (code.trim().isEmpty()) {
-                code2 = "";
+            return code.isEmpty() ? "" : "\n" + code;
+        }
+
+        private int afterImportsPosition() {
+            // the newline that starts the line after the imports is written by the
+            // imports code
+            if (importsPosition < b.length() && b.charAt(importsPosition) == '\n') {
+                return importsPosition + 1;
             } else {
-                code2 = "\n" + imports.toCode();
+                return importsPosition;
+            }
+        }
+
+        @Override
+        public String toString() {
+            if (importsPosition == -1) {
+                return b.toString();
             }
-            return s.replace(IMPORTS_HERE + "\n", code2);
+            String code = importsCode();
+            int after = afterImportsPosition();
+            StringBuilder s = new StringBuilder(importsPosition + code.length() + b.length() - after);
+            s.append(b, 0, importsPosition);
+            s.append(code);
+            s.append(b, after, b.length());
+            return s.toString();
         }
     }
 
     private static final Map<String, String> TYPE_PRIMITIVES = createPrimitives();
     private static final Set<String> PRIMITIVES = new HashSet<>(createPrimitives().values());
+    private static final Map<String, Class<?>> PRIMITIVE_WRAPPERS = createPrimitiveWrappers();
 
     private static String toPrimitive(String type) {
         String s = TYPE_PRIMITIVES.get(type);
@@ -869,17 +1546,243 @@ final class Generator {
         return map;
     }
 
+    /**
+     * Generation options that are not derived from the parameters of the
+     * annotated type.
+     */
+    // VisibleForTesting
+    static final class Options {
+
+        private Stages stages = Stages.WRAPPERS;
+        private boolean methodHandles;
+        private boolean transferCollections;
+        private boolean compactCollections;
+        private boolean cacheHashCode;
+        private boolean cacheToString;
+        private int toStringMaxElements = Integer.MAX_VALUE;
+        private boolean reusable;
+        private Validation validation = Validation.EAGER;
+        private boolean trusted;
+        private boolean intern;
+        private boolean primitiveCollections;
+
+        Options stages(Stages stages) {
+            this.stages = stages;
+            return this;
+        }
+
+        Stages stages() {
+            return stages;
+        }
+
+        /**
+         * Sets whether non-visible constructors are called using a
+         * {@code MethodHandle} obtained with {@code MethodHandles.privateLookupIn}
+         * (requires generated code to be compiled for Java 9+) rather than using
+         * reflection.
+         * 
+         * @param methodHandles true to use method handles
+         * @return this
+         */
+        Options methodHandles(boolean methodHandles) {
+            this.methodHandles = methodHandles;
+            return this;
+        }
+
+        boolean methodHandles() {
+            return methodHandles;
+        }
+
+        /**
+         * Sets whether collections passed to builder setters are adopted by the
+         * builder as is rather than copied into a collection owned by the builder.
+         * 
+         * @param transferCollections true to adopt collections without copying
+         * @return this
+         */
+        Options transferCollections(boolean transferCollections) {
+            this.transferCollections = transferCollections;
+            return this;
+        }
+
+        boolean transferCollections() {
+            return transferCollections;
+        }
+
+        /**
+         * Sets whether {@code List}, {@code Set} and {@code Map} fields are passed to
+         * the constructor as compact immutable copies rather than as unmodifiable
+         * views of the builder's collections.
+         * 
+         * @param compactCollections true to build compact immutable copies
+         * @return this
+         */
+        Options compactCollections(boolean compactCollections) {
+            this.compactCollections = compactCollections;
+            return this;
+        }
+
+        boolean compactCollections() {
+            return compactCollections;
+        }
+
+        /**
+         * Sets whether the generated interface implementation caches its hash code
+         * in a field after the first call to {@code hashCode()}.
+         * 
+         * @param cacheHashCode true to cache the hash code
+         * @return this
+         */
+        Options cacheHashCode(boolean cacheHashCode) {
+            this.cacheHashCode = cacheHashCode;
+            return this;
+        }
+
+        boolean cacheHashCode() {
+            return cacheHashCode;
+        }
+
+        /**
+         * Sets whether the generated interface implementation caches its
+         * {@code toString()} result in a field after the first call.
+         * 
+         * @param cacheToString true to cache the string
+         * @return this
+         */
+        Options cacheToString(boolean cacheToString) {
+            this.cacheToString = cacheToString;
+            return this;
+        }
+
+        boolean cacheToString() {
+            return cacheToString;
+        }
+
+        /**
+         * Sets the maximum number of elements of a collection or map field written by
+         * the {@code toString()} method of the generated interface implementation.
+         * 
+         * @param toStringMaxElements maximum number of elements
+         * @return this
+         */
+        Options toStringMaxElements(int toStringMaxElements) {
+            this.toStringMaxElements = toStringMaxElements;
+            return this;
+        }
+
+        int toStringMaxElements() {
+            return toStringMaxElements;
+        }
+
+        /**
+         * Sets whether the generated builder has a {@code reset()} method and a
+         * thread local instance returned by {@code reusable()}. Implies single
+         * instance stages and compact copies of {@code List}, {@code Set} and
+         * {@code Map} fields on build.
+         * 
+         * @param reusable true to generate a reusable builder
+         * @return this
+         */
+        Options reusable(boolean reusable) {
+            this.reusable = reusable;
+            return this;
+        }
+
+        boolean reusable() {
+            return reusable;
+        }
+
+        /**
+         * Sets when the generated interface implementation calls the {@code @Check}
+         * method (unless overridden at runtime by a system property).
+         * 
+         * @param validation validation mode
+         * @return this
+         */
+        Options validation(Validation validation) {
+            this.validation = validation;
+            return this;
+        }
+
+        Validation validation() {
+            return validation;
+        }
+
+        /**
+         * Sets whether the generated builder has a {@code buildUnchecked()} method
+         * and the generated interface implementation a {@code createTrusted} method
+         * that skip checks and unmodifiable wrapping.
+         * 
+         * @param trusted true to generate the unchecked methods
+         * @return this
+         */
+        Options trusted(boolean trusted) {
+            this.trusted = trusted;
+            return this;
+        }
+
+        boolean trusted() {
+            return trusted;
+        }
+
+        /**
+         * Sets whether built objects are interned so that equal objects built by the
+         * generated code are the same instance.
+         * 
+         * @param intern true to intern built objects
+         * @return this
+         */
+        Options intern(boolean intern) {
+            this.intern = intern;
+            return this;
+        }
+
+        boolean intern() {
+            return intern;
+        }
+
+        /**
+         * Sets whether the collection builders of {@code List}, {@code Set} and
+         * {@code Map} fields with {@code Integer}, {@code Long} or {@code Double}
+         * elements (or values) accumulate them in primitive backed collections
+         * (that do not accept nulls).
+         * 
+         * @param primitiveCollections true to use primitive backed collections
+         * @return this
+         */
+        Options primitiveCollections(boolean primitiveCollections) {
+            this.primitiveCollections = primitiveCollections;
+            return this;
+        }
+
+        boolean primitiveCollections() {
+            return primitiveCollections;
+        }
+    }
+
     // VisibleForTesting
     static final class Parameter {
 
         private final String type;
+        // derived from type once so that generation steps don't parse the type again
+        private final TypeModel typeModel;
+        private final String outerType;
+        private final String innerType;
         private final String name;
         private final boolean nullable;
         private final Optional<String> javadoc;
         private final boolean javadocPrerendered;
 
         Parameter(String type, String name, boolean nullable, Optional<String> javadoc, boolean javadocPrerendered) {
+            this(type, Generator.typeModel(type), name, nullable, javadoc, javadocPrerendered);
+        }
+
+        Parameter(String type, TypeModel typeModel, String name, boolean nullable, Optional<String> javadoc,
+                boolean javadocPrerendered) {
             this.type = type;
+            this.typeModel = typeModel;
+            this.outerType = Generator.outerType(type);
+            this.innerType = Generator.innerType(type);
             this.name = name;
             this.nullable = nullable;
             this.javadoc = javadoc;
@@ -890,6 +1793,25 @@ final class Generator {
             return type;
         }
 
+        TypeModel typeModel() {
+            return typeModel;
+        }
+
+        /**
+         * Returns the type without its type arguments.
+         */
+        String outerType() {
+            return outerType;
+        }
+
+        /**
+         * Returns the type arguments of the type (as written) or the type if it has
+         * none.
+         */
+        String innerType() {
+            return innerType;
+        }
+
         String name() {
             return name;
         }
@@ -922,6 +1844,13 @@ final class Generator {
 
     static String generateImplementationClass(String className, List<Parameter> parameters,
             String implementationClassName, Optional<String> checkMethodName) {
+        return generateImplementationClass(className, parameters, implementationClassName, checkMethodName,
+                Collections.emptyList(), new Options()).toString();
+    }
+
+    static Output generateImplementationClass(String className, List<Parameter> parameters,
+            String implementationClassName, Optional<String> checkMethodName, List<Parameter> memoized,
+            Options options) {
         Output o = new Output(implementationClassName);
         String implementationSimpleClassName = Util.simpleClassName(implementationClassName);
         o.generatedComment();
@@ -930,66 +1859,303 @@ final class Generator {
         o.line();
         o.line("public class %s implements %s {", implementationSimpleClassName, o.add(className));
         o.line();
+        boolean deferred = checkMethodName.isPresent() && options.validation() == Validation.DEFERRED;
+        if (checkMethodName.isPresent()) {
+            o.line("private static final %s _validation = %s.validation(\"%s\", %s.%s);", Validation.class,
+                    Helpers.class, className, Validation.class, options.validation());
+            o.line();
+        }
+        if (options.intern()) {
+            o.line("private static final %s<%s> _interner = %s.forClass(%s.class);", Interner.class,
+                    o.add(className), Interner.class, o.add(className));
+            o.line();
+        }
         for (Parameter p : parameters) {
             o.line("private final %s %s;", o.add(p.type()), p.name());
         }
+        if (deferred) {
+            o.line("private volatile boolean _validated;");
+            o.line("// the thread running the check, which reads the fields without validation");
+            o.line("private %s _validating;", Thread.class);
+        }
+        if (deferred || memoized.stream().anyMatch(p -> !p.isPrimitive())) {
+            o.line("private final %s _lock = new %s();", Object.class, Object.class);
+        }
+        if (options.cacheHashCode()) {
+            o.line("private int _hashCode;");
+        }
+        if (options.cacheToString()) {
+            o.line("private %s _toString;", String.class);
+        }
+        for (Parameter p : memoized) {
+            // the flag (rather than null) marks the value as computed so null results are cached
+            o.line("private %s _%s;", o.add(p.type()), p.name());
+            o.line("private volatile boolean _%sComputed;", p.name());
+        }
+        if (!options.cacheToString()) {
+            o.line();
+            o.line("// longest toString result so far (up to a limit), used to size the buffer. Only");
+            o.line("// written when it grows so instances don't contend on it (racy updates are fine)");
+            o.line("private static int _toStringLength = 64;");
+        }
         o.line();
         o.line("private %s(%s) {", implementationSimpleClassName, asArguments(parameters, o));
-        for (Parameter p : parameters) {
-            if (!p.isPrimitive()) {
-                o.line("%s.checkNotNull(%s, \"%s\");", Preconditions.class, p.name(), p.name());
-            }
-        }
         for (Parameter p : parameters) {
             o.line("this.%s = %s;", p.name(), p.name());
         }
-        checkMethodName.ifPresent(s -> o.line("%s();", s));
         o.close();
         o.line();
         o.line("public static %s create(%s) {", implementationSimpleClassName, asArguments(parameters, o));
+        for (Parameter p : parameters) {
+            if (!p.isPrimitive()) {
+                o.line("%s.checkNotNull(%s, \"%s\");", Preconditions.class, p.name(), p.name());
+            }
+        }
         if (checkMethodName.isPresent()) {
+            // the check is called once here (not in the constructor as well)
             o.line("%s _o = new %s(%s);", implementationSimpleClassName, implementationSimpleClassName,
                     parameters.stream().map(x -> x.name()).collect(Collectors.joining(", ")));
-            o.line("_o.%s();", checkMethodName.get());
-            o.line("return _o;");
+            if (deferred) {
+                o.line("if (_validation == %s.EAGER) {", Validation.class);
+                o.line("_o.validate();");
+                o.close();
+                o.line("else if (_validation == %s.OFF) {", Validation.class);
+                o.line("_o._validated = true;");
+                o.close();
+            } else {
+                o.line("if (_validation != %s.OFF) {", Validation.class);
+                o.line("_o.%s();", checkMethodName.get());
+                o.close();
+            }
+            o.line("return %s;", interned(implementationSimpleClassName, "_o", options));
         } else {
-            o.line("return new %s(%s);", implementationSimpleClassName,
-                    parameters.stream().map(x -> x.name()).collect(Collectors.joining(", ")));
+            o.line("return %s;", interned(implementationSimpleClassName, String.format("new %s(%s)",
+                    implementationSimpleClassName,
+                    parameters.stream().map(x -> x.name()).collect(Collectors.joining(", "))), options));
         }
         o.close();
+        if (options.trusted()) {
+            writeCreateTrusted(o, implementationSimpleClassName, parameters, deferred, options);
+        }
         for (Parameter p : parameters) {
             o.line();
             o.line("@%s", Override.class);
-            o.line(ann(o, p));
+            o.line("%s", ann(o, p));
             o.line("public %s %s() {", o.add(p.type()), p.name());
+            if (deferred) {
+                o.line("if (!_validated && _validating != %s.currentThread()) {", Thread.class);
+                o.line("validate();");
+                o.close();
+            }
             o.line("return %s;", p.name());
             o.close();
         }
-        writeToString(parameters, o, implementationSimpleClassName);
-        writeEquals(parameters, o, implementationSimpleClassName);
-        writeHashCode(parameters, o);
-        return o.toString();
+        for (Parameter p : parameters) {
+            writeImplementationWithMethod(o, implementationSimpleClassName, parameters, p, options);
+        }
+        for (Parameter p : memoized) {
+            writeMemoized(o, className, p);
+        }
+        if (deferred) {
+            writeValidate(o, className, checkMethodName.get());
+        }
+        writeToString(parameters, o, implementationSimpleClassName, options);
+        writeEquals(parameters, o, implementationSimpleClassName, options);
+        writeHashCode(parameters, o, options);
+        return o;
+    }
+
+    private static void writeImplementationWithMethod(Output o, String implementationSimpleClassName,
+            List<Parameter> parameters, Parameter p, Options options) {
+        o.line();
+        o.line("/**");
+        o.line(" * Returns a copy of this object with {@code %s} set to the given value (other", p.name());
+        o.line(" * fields are shared, not copied) or this object if the field already equals the");
+        o.line(" * given value.");
+        o.line(" *");
+        o.line(" * @param %s new value of the field", p.name());
+        o.line(" * @return object with the new field value");
+        o.line(" */");
+        o.line("public %s %s(%s %s %s) {", implementationSimpleClassName, withMethodName(p), ann(o, p),
+                o.add(p.type()), p.name());
+        o.line("if (%s) {", equalsExpression(o, p, "this." + p.name(), p.name()));
+        o.line("return this;");
+        o.close();
+        // create checks the new value and calls the check method
+        o.line("return create(%s);", parameters.stream() //
+                .map(x -> x == p ? withArgument(o, x, options) : "this." + x.name()) //
+                .collect(Collectors.joining(", ")));
+        o.close();
     }
 
-    private static void writeToString(List<Parameter> parameters, Output o, String implementationSimpleClassName) {
+    private static void writeMemoized(Output o, String className, Parameter p) {
+        o.line();
+        o.line("@%s", Override.class);
+        o.line("public %s %s() {", o.add(p.type()), p.name());
+        if (p.isPrimitive()) {
+            // single-check idiom, the volatile write of the flag publishes the value
+            o.line("if (!_%sComputed) {", p.name());
+            o.line("_%s = %s.super.%s();", p.name(), o.add(className), p.name());
+            o.line("_%sComputed = true;", p.name());
+            o.close();
+            o.line("return _%s;", p.name());
+        } else {
+            // double-checked locking on a private lock, the volatile write of the flag
+            // publishes the value
+            o.line("if (!_%sComputed) {", p.name());
+            o.line("synchronized (_lock) {");
+            o.line("if (!_%sComputed) {", p.name());
+            o.line("_%s = %s.super.%s();", p.name(), o.add(className), p.name());
+            o.line("_%sComputed = true;", p.name());
+            o.close();
+            o.close();
+            o.close();
+            o.line("return _%s;", p.name());
+        }
+        o.close();
+    }
+
+    private static String interned(String implementationSimpleClassName, String expression, Options options) {
+        if (options.intern()) {
+            // only implementation instances are interned for the type
+            return String.format("(%s) _interner.intern(%s)", implementationSimpleClassName, expression);
+        } else {
+            return expression;
+        }
+    }
+
+    private static void writeCreateTrusted(Output o, String implementationSimpleClassName, List<Parameter> parameters,
+            boolean deferred, Options options) {
+        String args = parameters.stream().map(x -> x.name()).collect(Collectors.joining(", "));
+        o.line();
+        o.line("/**");
+        o.line(" * Returns a new instance without null checks or validation. The checks are");
+        o.line(" * run only when assertions are enabled.");
+        o.line(" */");
+        o.line("public static %s createTrusted(%s) {", implementationSimpleClassName, asArguments(parameters, o));
+        if (deferred) {
+            // create() defers the check so run it explicitly
+            o.line("assert validated(create(%s));", args);
+            o.line("%s _o = new %s(%s);", implementationSimpleClassName, implementationSimpleClassName, args);
+            o.line("_o._validated = true;");
+            o.line("return %s;", interned(implementationSimpleClassName, "_o", options));
+        } else {
+            o.line("assert create(%s) != null;", args);
+            o.line("return %s;", interned(implementationSimpleClassName,
+                    String.format("new %s(%s)", implementationSimpleClassName, args), options));
+        }
+        o.close();
+        if (deferred) {
+            o.line();
+            o.line("private static boolean validated(%s o) {", implementationSimpleClassName);
+            o.line("o.validate();");
+            o.line("return true;");
+            o.close();
+        }
+    }
+
+    private static void writeValidate(Output o, String className, String checkMethodName) {
+        o.line();
+        o.line("/**");
+        o.line(" * Calls the {@code @Check} method if it has not already been called successfully.");
+        o.line(" * Called by the first access of a field.");
+        o.line(" */");
+        if (checkMethodName.equals("validate")) {
+            o.line("@%s", Override.class);
+        }
+        o.line("public void validate() {");
+        o.line("if (_validated || _validating == %s.currentThread()) {", Thread.class);
+        o.line("return;");
+        o.close();
+        o.line("synchronized (_lock) {");
+        o.line("if (!_validated) {");
+        // other threads wait on the lock so only see the fields once the check has
+        // passed
+        o.line("_validating = %s.currentThread();", Thread.class);
+        o.line("try {");
+        if (checkMethodName.equals("validate")) {
+            o.line("%s.super.validate();", o.add(className));
+        } else {
+            o.line("%s();", checkMethodName);
+        }
+        o.line("_validated = true;");
+        o.close();
+        o.line("finally {");
+        o.line("_validating = null;");
+        o.close();
+        o.close();
+        o.close();
+        o.close();
+    }
+
+    private static void writeToString(List<Parameter> parameters, Output o, String implementationSimpleClassName,
+            Options options) {
         o.line();
         o.line("@%s", Override.class);
         o.line("public String toString() {");
-        o.line("%s b = new %s();", StringBuilder.class, StringBuilder.class);
+        if (options.cacheToString()) {
+            o.line("// racy single-check idiom, safe because String is immutable");
+            o.line("String s = _toString;");
+            o.line("if (s == null) {");
+            // computed once per instance so there is no shared buffer size hint to maintain
+            o.line("s = appendTo(new %s()).toString();", StringBuilder.class);
+            o.line("_toString = s;");
+            o.close();
+            o.line("return s;");
+        } else {
+            writeToStringComputation(o);
+            o.line("return b.toString();");
+        }
+        o.close();
+        writeAppendTo(parameters, o, implementationSimpleClassName, options, StringBuilder.class);
+        writeAppendTo(parameters, o, implementationSimpleClassName, options, Appendable.class);
+    }
+
+    private static void writeToStringComputation(Output o) {
+        o.line("%s b = appendTo(new %s(_toStringLength));", StringBuilder.class, StringBuilder.class);
+        o.line("if (b.length() > _toStringLength && b.length() <= %s) {", TO_STRING_LENGTH_HINT_MAX);
+        o.line("_toStringLength = b.length();");
+        o.close();
+    }
+
+    private static void writeAppendTo(List<Parameter> parameters, Output o, String implementationSimpleClassName,
+            Options options, Class<?> cls) {
+        boolean isStringBuilder = cls == StringBuilder.class;
+        o.line();
+        o.line("/**");
+        o.line(" * Writes the same characters as {@code toString()} to {@code b}.");
+        o.line(" *");
+        o.line(" * @param b destination");
+        o.line(" * @return {@code b}");
+        if (!isStringBuilder) {
+            o.line(" * @throws IOException if thrown by {@code b}");
+        }
+        o.line(" */");
+        o.line("public %s appendTo(%s b)%s {", cls, cls, isStringBuilder ? "" : " throws " + o.add(IOException.class));
         o.line("b.append(\"%s[\");", implementationSimpleClassName);
         boolean first = true;
         for (Parameter p : parameters) {
             String extra = first ? "" : ", ";
             o.line("b.append(\"%s%s=\");", extra, p.name());
-            o.line("b.append(%s.valueOf(this.%s));", String.class, p.name());
+            if (COLLECTION_TYPES.containsKey(p.outerType())) {
+                o.line("%s.appendTo(b, this.%s, %s);", Helpers.class, p.name(),
+                        options.toStringMaxElements() == Integer.MAX_VALUE ? "Integer.MAX_VALUE"
+                                : String.valueOf(options.toStringMaxElements()));
+            } else if (isStringBuilder || p.type().equals(String.class.getCanonicalName())) {
+                // StringBuilder has primitive overloads and append(CharSequence) writes "null"
+                o.line("b.append(this.%s);", p.name());
+            } else {
+                o.line("b.append(%s.valueOf(this.%s));", String.class, p.name());
+            }
             first = false;
         }
         o.line("b.append(\"]\");");
-        o.line("return b.toString();");
+        o.line("return b;");
         o.close();
     }
 
-    private static void writeEquals(List<Parameter> parameters, Output o, String implementationSimpleClassName) {
+    private static void writeEquals(List<Parameter> parameters, Output o, String implementationSimpleClassName,
+            Options options) {
         o.line();
         o.line("@%s", Override.class);
         o.line("public boolean equals(%s o) {", Object.class);
@@ -997,29 +2163,1008 @@ final class Generator {
         o.line("if (o == null) return false;");
         o.line("if (getClass() != o.getClass()) return false;");
         o.line("%s other = (%s) o;", implementationSimpleClassName, implementationSimpleClassName);
+        if (options.cacheHashCode()) {
+            o.line("// only compare hash codes if both have been calculated");
+            o.line("if (_hashCode != 0 && other._hashCode != 0 && _hashCode != other._hashCode) return false;");
+        }
         if (parameters.isEmpty()) {
             o.line("return true;");
         } else {
+            // compare cheapest fields first so that unequal objects are detected early
+            List<Parameter> list = new ArrayList<>(parameters);
+            list.sort(Comparator.comparingInt(Generator::equalsCost));
             o.line("return");
             o.right();
-            for (int i = 0; i < parameters.size(); i++) {
-                Parameter p = parameters.get(i);
+            for (int i = 0; i < list.size(); i++) {
+                Parameter p = list.get(i);
                 String prefix = i == 0 ? "" : "&& ";
-                String suffix = i == parameters.size() - 1 ? ";" : "";
-                o.line("%s%s.equals(this.%s, other.%s)%s", prefix, Objects.class, p.name, p.name, suffix);
+                String suffix = i == list.size() - 1 ? ";" : "";
+                o.line("%s%s%s", prefix, equalsExpression(o, p), suffix);
             }
             o.left();
         }
         o.close();
     }
 
-    private static void writeHashCode(List<Parameter> parameters, Output o) {
+    private static String equalsExpression(Output o, Parameter p) {
+        return equalsExpression(o, p, "this." + p.name(), "other." + p.name());
+    }
+
+    private static String equalsExpression(Output o, Parameter p, String a, String b) {
+        if (p.type().equals("double")) {
+            return String.format("%s.compare(%s, %s) == 0", o.add(Double.class), a, b);
+        } else if (p.type().equals("float")) {
+            return String.format("%s.compare(%s, %s) == 0", o.add(Float.class), a, b);
+        } else if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            return String.format("%s == %s", a, b);
+        } else {
+            return String.format("%s.equals(%s, %s)", o.add(Objects.class), a, b);
+        }
+    }
+
+    private static int equalsCost(Parameter p) {
+        String outerType = p.outerType();
+        if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            return 0;
+        } else if (TYPE_PRIMITIVES.containsKey(p.type()) || p.type().equals(String.class.getCanonicalName())) {
+            return 1;
+        } else if (COLLECTION_TYPES.containsKey(outerType) || p.type().endsWith("[]")) {
+            return 3;
+        } else {
+            return 2;
+        }
+    }
+
+    private static void writeHashCode(List<Parameter> parameters, Output o, Options options) {
         o.line();
         o.line("@%s", Override.class);
         o.line("public int hashCode() {");
-        String args = parameters.stream().map(x -> x.name()).collect(Collectors.joining(", "));
-        o.line("return %s.hash(%s);", Objects.class, args);
+        if (options.cacheHashCode()) {
+            o.line("// racy single-check idiom (as used by String), safe because the fields are final");
+            o.line("int h = _hashCode;");
+            o.line("if (h == 0) {");
+            o.line("h = 1;");
+            writeHashCodeComputation(parameters, o);
+            o.line("_hashCode = h;");
+            o.close();
+            o.line("return h;");
+        } else {
+            o.line("int h = 1;");
+            writeHashCodeComputation(parameters, o);
+            o.line("return h;");
+        }
         o.close();
         o.close();
     }
+
+    private static void writeHashCodeComputation(List<Parameter> parameters, Output o) {
+        // same value as Objects.hash(...) but without the varargs array and boxing
+        for (Parameter p : parameters) {
+            Class<?> wrapper = PRIMITIVE_WRAPPERS.get(p.type());
+            if (wrapper == null) {
+                o.line("h = 31 * h + %s.hashCode(this.%s);", Objects.class, p.name());
+            } else {
+                o.line("h = 31 * h + %s.hashCode(this.%s);", wrapper, p.name());
+            }
+        }
+    }
+
+    // VisibleForTesting
+    static Output generateCodec(String className, String codecClassName, List<Parameter> parameters,
+            Construction construction, String implementationClassName, Options options) {
+        Output o = new Output(codecClassName);
+        String codecSimpleClassName = Util.simpleClassName(codecClassName);
+        o.generatedComment();
+        o.line("package %s;", Util.pkg(codecClassName));
+        o.importsHere();
+        o.line();
+        o.line("@%s(\"%s\")", Generated.class, "com.github.davidmoten:chained-processor");
+        o.line("public final class %s {", codecSimpleClassName);
+        o.line();
+        writeInternerField(o, className, construction, options);
+        privateConstructor(o, codecSimpleClassName);
+        o.line();
+        o.line("/**");
+        o.line(" * Writes the fields of the value to the buffer starting at its current position.");
+        o.line(" * Collection elements and map keys and values must not be null.");
+        o.line(" *");
+        o.line(" * @param value  value to write");
+        o.line(" * @param buffer destination");
+        o.line(" */");
+        o.line("public static void write(@%s %s value, @%s %s buffer) {", Nonnull.class, o.add(className),
+                Nonnull.class, ByteBuffer.class);
+        for (Parameter p : parameters) {
+            writeCodecField(o, p);
+        }
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Reads a value written by {@link #write} starting at the current position of the");
+        o.line(" * buffer.");
+        o.line(" *");
+        o.line(" * @param buffer source");
+        o.line(" * @return value");
+        o.line(" */");
+        o.line("public static %s read(@%s %s buffer) {", o.add(className), Nonnull.class, ByteBuffer.class);
+        List<String> args = new ArrayList<>();
+        for (Parameter p : parameters) {
+            String variable = "_" + p.name();
+            if (readCodecField(o, p, variable)) {
+                args.add(String.format("%s.%s(%s)", o.add(Helpers.class), immutableMethod(p, options), variable));
+            } else {
+                args.add(variable);
+            }
+        }
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true, options);
+        o.close();
+        writeConstructorHolder(o, className, parameters, construction, options);
+        o.close();
+        return o;
+    }
+
+    private static void writeCodecField(Output o, Parameter p) {
+        String variable = "_" + p.name();
+        o.line("%s %s = value.%s();", o.add(p.type()), variable, p.name());
+        if (p.isOptional()) {
+            o.line("%s.writeBoolean(buffer, %s.isPresent());", Codecs.class, variable);
+            o.line("if (%s.isPresent()) {", variable);
+            writeCodecScalar(o, p, p.innerType(), variable + ".get()");
+            o.close();
+        } else if (p.isNullable() && !PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            o.line("%s.writeBoolean(buffer, %s != null);", Codecs.class, variable);
+            o.line("if (%s != null) {", variable);
+            writeCodecValue(o, p, variable);
+            o.close();
+        } else {
+            writeCodecValue(o, p, variable);
+        }
+    }
+
+    private static void writeCodecValue(Output o, Parameter p, String variable) {
+        TypeModel tm = p.typeModel();
+        CollectionType collectionType = exactCollectionType(tm);
+        if (collectionType == null) {
+            writeCodecScalar(o, p, p.type(), variable);
+        } else if (collectionType == CollectionType.MAP) {
+            String keyType = tm.typeArguments.get(0).render();
+            String valueType = tm.typeArguments.get(1).render();
+            o.line("buffer.putInt(%s.size());", variable);
+            o.line("for (%s.Entry<%s, %s> x : %s.entrySet()) {", Map.class, o.add(keyType), o.add(valueType),
+                    variable);
+            writeCodecScalar(o, p, keyType, "x.getKey()");
+            writeCodecScalar(o, p, valueType, "x.getValue()");
+            o.close();
+        } else {
+            String elementType = tm.typeArguments.get(0).render();
+            o.line("buffer.putInt(%s.size());", variable);
+            o.line("for (%s x : %s) {", o.add(elementType), variable);
+            writeCodecScalar(o, p, elementType, "x");
+            o.close();
+        }
+    }
+
+    private static void writeCodecScalar(Output o, Parameter p, String type, String expression) {
+        String primitive = scalarType(p, type, "codec");
+        if (primitive.equals("boolean")) {
+            o.line("%s.writeBoolean(buffer, %s);", Codecs.class, expression);
+        } else if (primitive.equals(String.class.getCanonicalName())) {
+            o.line("%s.writeString(buffer, %s);", Codecs.class, expression);
+        } else {
+            o.line("buffer.put%s(%s);", BUFFER_METHOD_SUFFIXES.get(primitive), expression);
+        }
+    }
+
+    /**
+     * Writes the declaration and reading of the local variable for a parameter.
+     * 
+     * @return true if the variable is a collection that should be made immutable
+     */
+    private static boolean readCodecField(Output o, Parameter p, String variable) {
+        if (p.isOptional()) {
+            String optional = o.add(p.outerType());
+            o.line("%s %s = %s.readBoolean(buffer) ? %s.of(%s) : %s.empty();", o.add(p.type()), variable,
+                    Codecs.class, optional, readCodecScalar(o, p, p.innerType()), optional);
+            return false;
+        }
+        TypeModel tm = p.typeModel();
+        CollectionType collectionType = exactCollectionType(tm);
+        boolean nullable = p.isNullable() && !PRIMITIVE_WRAPPERS.containsKey(p.type());
+        if (collectionType == null) {
+            if (nullable) {
+                o.line("%s %s = %s.readBoolean(buffer) ? %s : null;", o.add(p.type()), variable, Codecs.class,
+                        readCodecScalar(o, p, p.type()));
+            } else {
+                o.line("%s %s = %s;", o.add(p.type()), variable, readCodecScalar(o, p, p.type()));
+            }
+            return false;
+        }
+        String valueType = tm.typeArguments.get(tm.typeArguments.size() - 1).render();
+        CollectionLocal local = collectionLocal(o, tm, collectionType,
+                collectionType == CollectionType.LIST ? variable + "Size" : "");
+        if (nullable) {
+            o.line("%s %s = null;", local.declaredType, variable);
+            o.line("if (%s.readBoolean(buffer)) {", Codecs.class);
+            o.line("int %sSize = %s.readSize(buffer);", variable, Codecs.class);
+            o.line("%s = %s;", variable, local.creation);
+        } else {
+            o.line("int %sSize = %s.readSize(buffer);", variable, Codecs.class);
+            o.line("%s %s = %s;", local.declaredType, variable, local.creation);
+        }
+        o.line("for (int i = 0; i < %sSize; i++) {", variable);
+        if (collectionType == CollectionType.MAP) {
+            o.line("%s.put%s(%s, %s);", variable, local.addSuffix,
+                    readCodecScalar(o, p, tm.typeArguments.get(0).render()), readCodecScalar(o, p, valueType));
+        } else {
+            o.line("%s.add%s(%s);", variable, local.addSuffix, readCodecScalar(o, p, valueType));
+        }
+        o.close();
+        if (nullable) {
+            o.close();
+        }
+        return true;
+    }
+
+    static Output generateBatchBuilder(String className, String batchClassName, List<Parameter> parameters,
+            Construction construction, String implementationClassName, Options options) {
+        Output o = new Output(batchClassName);
+        String batchSimpleClassName = Util.simpleClassName(batchClassName);
+        o.generatedComment();
+        o.line("package %s;", Util.pkg(batchClassName));
+        o.importsHere();
+        o.line();
+        o.line("@%s(\"%s\")", Generated.class, "com.github.davidmoten:chained-processor");
+        o.line("public final class %s {", batchSimpleClassName);
+        o.line();
+        writeInternerField(o, className, construction, options);
+        o.line("private final int _size;");
+        for (Parameter p : parameters) {
+            o.line("private %s %s;", batchColumnType(o, p), p.name());
+        }
+        o.line();
+        o.line("private %s(int size) {", batchSimpleClassName);
+        o.line("this._size = size;");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Returns a builder of {@code size} objects from columns of field values. Every");
+        o.line(" * column must have {@code size} elements. Columns are read when the objects are");
+        o.line(" * built (not copied when set) so must not be changed until then.");
+        o.line(" *");
+        o.line(" * @param size number of objects to build");
+        o.line(" * @return batch builder");
+        o.line(" */");
+        o.line("public static %s size(int size) {", batchSimpleClassName);
+        o.line("%s.checkArgument(size >= 0, \"size must not be negative\");", Preconditions.class);
+        o.line("return new %s(size);", batchSimpleClassName);
+        o.close();
+        for (Parameter p : parameters) {
+            o.line();
+            o.line("/**");
+            o.line(" * Sets the values of {@code %s}, one per object. %s", p.name(), p.isOptional() || p.isNullable()
+                    ? "If not set the field is " + (p.isOptional() ? "empty." : "null.")
+                    : "Must be set.");
+            o.line(" *");
+            o.line(" * @param %s column of values", p.name());
+            o.line(" * @return this");
+            o.line(" */");
+            o.line("public %s %s(@%s %s %s) {", batchSimpleClassName, p.name(), Nonnull.class,
+                    batchColumnType(o, p), p.name());
+            if (p.isPrimitive()) {
+                o.line("%s.checkNotNull(%s, \"%s\");", Preconditions.class, p.name(), p.name());
+                o.line("checkLength(%s.length, \"%s\");", p.name(), p.name());
+                o.line("this.%s = %s;", p.name(), p.name());
+            } else {
+                o.line("this.%s = column(%s, \"%s\");", p.name(), p.name(), p.name());
+            }
+            o.line("return this;");
+            o.close();
+        }
+        o.line();
+        o.line("/**");
+        o.line(" * Builds the objects in a loop on the calling thread.");
+        o.line(" *");
+        o.line(" * @return the built objects in column order");
+        o.line(" */");
+        o.line("public %s[] buildArray() {", o.add(className));
+        o.line("checkColumns();");
+        o.line("%s[] a = new %s[_size];", o.add(className), o.add(className));
+        o.line("for (int i = 0; i < _size; i++) {");
+        o.line("a[i] = row(i);");
+        o.close();
+        o.line("return a;");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Builds the objects in a loop on the calling thread.");
+        o.line(" *");
+        o.line(" * @return unmodifiable list of the built objects in column order");
+        o.line(" */");
+        o.line("public %s<%s> build() {", List.class, o.add(className));
+        o.line("return %s.unmodifiableList(%s.asList(buildArray()));", Collections.class, Arrays.class);
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Builds the objects in chunks on the common fork join pool (for large batches).");
+        o.line(" *");
+        o.line(" * @return unmodifiable list of the built objects in column order");
+        o.line(" */");
+        o.line("public %s<%s> buildParallel() {", List.class, o.add(className));
+        o.line("checkColumns();");
+        o.line("%s[] a = new %s[_size];", o.add(className), o.add(className));
+        o.line("%s.range(0, _size).parallel().forEach(i -> a[i] = row(i));", IntStream.class);
+        o.line("return %s.unmodifiableList(%s.asList(a));", Collections.class, Arrays.class);
+        o.close();
+        o.line();
+        o.line("private %s row(int _i) {", o.add(className));
+        o.line("return create(%s);", parameters.stream() //
+                .map(p -> batchRowValue(o, p)) //
+                .map(x -> "\n" + repeat("    ", 4) + x) //
+                .collect(Collectors.joining(",")));
+        o.close();
+        o.line();
+        o.line("private static %s create(%s) {", o.add(className), asArguments(parameters, o));
+        if (construction != Construction.INTERFACE_IMPLEMENTATION) {
+            // the implementation of an interface checks for nulls itself
+            for (Parameter p : parameters) {
+                if (!p.isPrimitive() && !p.isNullable()) {
+                    o.line("%s.checkNotNull(%s, \"%s\");", Preconditions.class, p.name(), p.name());
+                }
+            }
+        }
+        List<String> args = parameters.stream() //
+                .map(p -> p.isPrimitive() ? p.name()
+                        : String.format("%s.%s(%s)", o.add(Helpers.class), immutableMethod(p, options), p.name())) //
+                .collect(Collectors.toList());
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true, options);
+        o.close();
+        o.line();
+        o.line("private void checkColumns() {");
+        o.line("// columns are not copied so check lengths again in case they changed after being set");
+        for (Parameter p : parameters) {
+            if (!p.isOptional() && !p.isNullable()) {
+                o.line("%s.checkArgument(%s != null, \"column %s must be set\");", Preconditions.class, p.name(),
+                        p.name());
+                o.line("checkLength(%s.%s, \"%s\");", p.name(), p.isPrimitive() ? "length" : "size()", p.name());
+            } else {
+                o.line("if (%s != null) {", p.name());
+                o.line("checkLength(%s.%s, \"%s\");", p.name(), p.isPrimitive() ? "length" : "size()", p.name());
+                o.close();
+            }
+        }
+        o.close();
+        o.line();
+        o.line("private void checkLength(int length, %s name) {", String.class);
+        o.line("%s.checkArgument(length == _size, \"column \" + name + \" must have \" + _size + \" elements\");",
+                Preconditions.class);
+        o.close();
+        o.line();
+        o.line("private <T> %s<T> column(%s<T> values, %s name) {", List.class, List.class, String.class);
+        o.line("%s.checkNotNull(values, name);", Preconditions.class);
+        o.line("checkLength(values.size(), name);");
+        o.line("// get(i) must be cheap");
+        o.line("return values instanceof %s ? values : new %s<>(values);", RandomAccess.class, ArrayList.class);
+        o.close();
+        writeConstructorHolder(o, className, parameters, construction, options);
+        o.close();
+        return o;
+    }
+
+    private static String batchColumnType(Output o, Parameter p) {
+        if (p.isPrimitive()) {
+            return p.type() + "[]";
+        } else {
+            return String.format("%s<? extends %s>", o.add(List.class), o.add(p.type()));
+        }
+    }
+
+    private static String batchRowValue(Output o, Parameter p) {
+        if (p.isPrimitive()) {
+            return p.name() + "[_i]";
+        } else if (p.isOptional()) {
+            return String.format("%s == null ? %s.empty() : %s.get(_i)", p.name(), o.add(p.outerType()), p.name());
+        } else if (p.isNullable()) {
+            return String.format("%s == null ? null : %s.get(_i)", p.name(), p.name());
+        } else {
+            return p.name() + ".get(_i)";
+        }
+    }
+
+    /**
+     * A fixed length slot of a flyweight record.
+     */
+    private static final class FlyweightSlot {
+        final String constant;
+        final int size;
+        int offset;
+
+        FlyweightSlot(String constant, int size) {
+            this.constant = constant;
+            this.size = size;
+        }
+    }
+
+    private static final Map<String, Integer> PRIMITIVE_SIZES = createPrimitiveSizes();
+
+    private static Map<String, Integer> createPrimitiveSizes() {
+        Map<String, Integer> map = new HashMap<>();
+        map.put("byte", 1);
+        map.put("boolean", 1);
+        map.put("short", 2);
+        map.put("char", 2);
+        map.put("int", 4);
+        map.put("float", 4);
+        map.put("long", 8);
+        map.put("double", 8);
+        return map;
+    }
+
+    static Output generateFlyweight(String className, String flyweightClassName, List<Parameter> parameters,
+            String implementationClassName) {
+        Output o = new Output(flyweightClassName);
+        String flyweightSimpleClassName = Util.simpleClassName(flyweightClassName);
+        // fixed length fields are primitives (and the presence flags of Optionals) at
+        // constant offsets. Strings are stored after the fixed length part and the
+        // fixed length part has the (relative) end offset of each string.
+        List<FlyweightSlot> slots = new ArrayList<>();
+        Map<String, String> scalarTypes = new HashMap<>();
+        List<Parameter> strings = new ArrayList<>();
+        for (Parameter p : parameters) {
+            String type = scalarType(p, p.isOptional() ? p.innerType() : p.type(), "flyweight");
+            scalarTypes.put(p.name(), type);
+            if (p.isOptional()) {
+                slots.add(new FlyweightSlot(constantName(p.name()) + "_PRESENT_OFFSET", 1));
+            }
+            if (type.equals(String.class.getCanonicalName())) {
+                strings.add(p);
+                slots.add(new FlyweightSlot(constantName(p.name()) + "_END_OFFSET", 4));
+            } else {
+                slots.add(new FlyweightSlot(constantName(p.name()) + "_OFFSET", PRIMITIVE_SIZES.get(type)));
+            }
+        }
+        // largest first so that values are aligned relative to the record start
+        List<FlyweightSlot> sorted = new ArrayList<>(slots);
+        sorted.sort(Comparator.comparingInt((FlyweightSlot x) -> x.size).reversed());
+        int fixedSize = 0;
+        for (FlyweightSlot slot : sorted) {
+            slot.offset = fixedSize;
+            fixedSize += slot.size;
+        }
+        o.generatedComment();
+        o.line("package %s;", Util.pkg(flyweightClassName));
+        o.importsHere();
+        o.line();
+        o.line("/**");
+        o.line(" * Implementation of {@link %s} that reads its fields from a record in a", o.add(className));
+        o.line(" * {@link %s} (for example a direct or memory mapped buffer) written by", o.add(ByteBuffer.class));
+        o.line(" * {@link #append}. A flyweight is pointed at a record with {@link #wrap} and can be");
+        o.line(" * reused for many records. Equality is identity, use {@link #copy()} for a heap");
+        o.line(" * object.");
+        o.line(" */");
+        o.line("@%s(\"%s\")", Generated.class, "com.github.davidmoten:chained-processor");
+        o.line("public final class %s implements %s {", flyweightSimpleClassName, o.add(className));
+        o.line();
+        o.line("/**");
+        o.line(" * Length in bytes of the fixed length part of a record.");
+        o.line(" */");
+        o.line("public static final int FIXED_LENGTH = %s;", fixedSize);
+        o.line();
+        for (FlyweightSlot slot : slots) {
+            o.line("private static final int %s = %s;", slot.constant, slot.offset);
+        }
+        o.line();
+        o.line("private %s buffer;", ByteBuffer.class);
+        o.line("private int offset;");
+        o.line();
+        o.line("/**");
+        o.line(" * Points this flyweight at the record starting at {@code offset} in {@code buffer}.");
+        o.line(" *");
+        o.line(" * @param buffer buffer containing the record");
+        o.line(" * @param offset index of the first byte of the record");
+        o.line(" * @return this");
+        o.line(" */");
+        o.line("public %s wrap(@%s %s buffer, int offset) {", flyweightSimpleClassName, Nonnull.class,
+                ByteBuffer.class);
+        o.line("this.buffer = buffer;");
+        o.line("this.offset = offset;");
+        o.line("return this;");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Returns the length in bytes of the current record.");
+        o.line(" *");
+        o.line(" * @return record length");
+        o.line(" */");
+        o.line("public int recordLength() {");
+        if (strings.isEmpty()) {
+            o.line("return FIXED_LENGTH;");
+        } else {
+            o.line("return buffer.getInt(offset + %s_END_OFFSET);",
+                    constantName(strings.get(strings.size() - 1).name()));
+        }
+        o.close();
+        for (Parameter p : parameters) {
+            String type = scalarTypes.get(p.name());
+            o.line();
+            o.line("@%s", Override.class);
+            o.line("public %s %s() {", o.add(p.type()), p.name());
+            String value;
+            if (type.equals(String.class.getCanonicalName())) {
+                int index = strings.indexOf(p);
+                // a string starts where the previous one ends
+                String start = index == 0 ? "FIXED_LENGTH"
+                        : String.format("buffer.getInt(offset + %s_END_OFFSET)",
+                                constantName(strings.get(index - 1).name()));
+                o.line("int start = %s;", start);
+                value = String.format(
+                        "%s.getString(buffer, offset + start, buffer.getInt(offset + %s_END_OFFSET) - start)",
+                        o.add(Codecs.class), constantName(p.name()));
+            } else if (type.equals("boolean")) {
+                value = String.format("buffer.get(offset + %s_OFFSET) != 0", constantName(p.name()));
+            } else {
+                value = String.format("buffer.get%s(offset + %s_OFFSET)", BUFFER_METHOD_SUFFIXES.get(type),
+                        constantName(p.name()));
+            }
+            if (p.isOptional()) {
+                o.line("if (buffer.get(offset + %s_PRESENT_OFFSET) == 0) {", constantName(p.name()));
+                o.line("return %s.empty();", o.add(p.outerType()));
+                o.close();
+                o.line("return %s.of(%s);", o.add(p.outerType()), value);
+            } else {
+                o.line("return %s;", value);
+            }
+            o.close();
+        }
+        o.line();
+        o.line("/**");
+        o.line(" * Returns a heap copy of the current record.");
+        o.line(" *");
+        o.line(" * @return copy");
+        o.line(" */");
+        o.line("public %s copy() {", o.add(className));
+        o.line("return %s.create(%s);", o.add(implementationClassName), parameters.stream() //
+                .map(p -> p.name() + "()") //
+                .collect(Collectors.joining(", ")));
+        o.close();
+        o.line();
+        o.line("@%s", Override.class);
+        o.line("public %s toString() {", String.class);
+        o.line("return copy().toString();");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Writes the value as a record starting at the position of the buffer and moves");
+        o.line(" * the position to the end of the record.");
+        o.line(" *");
+        o.line(" * @param buffer destination");
+        o.line(" * @param value  value to write");
+        o.line(" * @return offset of the record (to pass to {@link #wrap})");
+        o.line(" */");
+        o.line("public static int append(@%s %s buffer, @%s %s value) {", Nonnull.class, ByteBuffer.class,
+                Nonnull.class, o.add(className));
+        o.line("int offset = buffer.position();");
+        if (!strings.isEmpty()) {
+            o.line("int end = FIXED_LENGTH;");
+        }
+        for (Parameter p : parameters) {
+            String type = scalarTypes.get(p.name());
+            String variable = "_" + p.name();
+            String constant = constantName(p.name());
+            o.line("%s %s = value.%s();", o.add(p.type()), variable, p.name());
+            String v = variable;
+            if (p.isOptional()) {
+                o.line("buffer.put(offset + %s_PRESENT_OFFSET, (byte) (%s.isPresent() ? 1 : 0));", constant,
+                        variable);
+                o.line("if (%s.isPresent()) {", variable);
+                v = variable + ".get()";
+            }
+            if (type.equals(String.class.getCanonicalName())) {
+                o.line("end += %s.putString(buffer, offset + end, %s);", Codecs.class, v);
+            } else if (type.equals("boolean")) {
+                o.line("buffer.put(offset + %s_OFFSET, (byte) (%s ? 1 : 0));", constant, v);
+            } else {
+                o.line("buffer.put%s(offset + %s_OFFSET, %s);", BUFFER_METHOD_SUFFIXES.get(type), constant, v);
+            }
+            if (p.isOptional()) {
+                o.close();
+            }
+            if (type.equals(String.class.getCanonicalName())) {
+                o.line("buffer.putInt(offset + %s_END_OFFSET, end);", constant);
+            }
+        }
+        o.line("buffer.position(offset + %s);", strings.isEmpty() ? "FIXED_LENGTH" : "end");
+        o.line("return offset;");
+        o.close();
+        o.close();
+        return o;
+    }
+
+    private static String constantName(String name) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0) {
+                b.append('_');
+            }
+            b.append(Character.toUpperCase(c));
+        }
+        return b.toString();
+    }
+
+    // VisibleForTesting
+    static Output generateJson(String className, String jsonClassName, List<Parameter> parameters,
+            Construction construction, String implementationClassName, Options options) {
+        Output o = new Output(jsonClassName);
+        String jsonSimpleClassName = Util.simpleClassName(jsonClassName);
+        o.generatedComment();
+        o.line("package %s;", Util.pkg(jsonClassName));
+        o.importsHere();
+        o.line();
+        o.line("@%s(\"%s\")", Generated.class, "com.github.davidmoten:chained-processor");
+        o.line("public final class %s {", jsonSimpleClassName);
+        o.line();
+        writeInternerField(o, className, construction, options);
+        privateConstructor(o, jsonSimpleClassName);
+        o.line();
+        o.line("/**");
+        o.line(" * Returns the JSON representation of the value. Null fields and empty optional");
+        o.line(" * fields are omitted.");
+        o.line(" *");
+        o.line(" * @param value value to write");
+        o.line(" * @return JSON");
+        o.line(" */");
+        o.line("public static %s toJson(@%s %s value) {", String.class, Nonnull.class, o.add(className));
+        o.line("%s b = new %s();", StringBuilder.class, StringBuilder.class);
+        o.line("try {");
+        o.line("write(value, new %s(b));", JsonWriter.class);
+        o.close();
+        o.line("catch (%s e) {", IOException.class);
+        o.line("// StringBuilder does not throw IOException");
+        o.line("throw new %s(e);", UncheckedIOException.class);
+        o.close();
+        o.line("return b.toString();");
+        o.close();
+        o.line();
+        o.line("public static void write(@%s %s value, @%s %s out) throws %s {", Nonnull.class, o.add(className),
+                Nonnull.class, Appendable.class, IOException.class);
+        o.line("write(value, new %s(out));", JsonWriter.class);
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Writes the JSON representation of the value as UTF-8 bytes. The stream is not");
+        o.line(" * closed.");
+        o.line(" *");
+        o.line(" * @param value value to write");
+        o.line(" * @param out   destination");
+        o.line(" * @throws IOException if thrown by the stream");
+        o.line(" */");
+        o.line("public static void write(@%s %s value, @%s %s out) throws %s {", Nonnull.class, o.add(className),
+                Nonnull.class, OutputStream.class, IOException.class);
+        o.line("%s w = new %s(new %s(out, %s.UTF_8));", Writer.class, BufferedWriter.class,
+                OutputStreamWriter.class, StandardCharsets.class);
+        o.line("write(value, w);");
+        o.line("w.flush();");
+        o.close();
+        o.line();
+        o.line("public static void write(@%s %s value, @%s %s w) throws %s {", Nonnull.class, o.add(className),
+                Nonnull.class, JsonWriter.class, IOException.class);
+        o.line("w.beginObject();");
+        for (Parameter p : parameters) {
+            writeJsonField(o, p);
+        }
+        o.line("w.endObject();");
+        o.close();
+        o.line();
+        o.line("/**");
+        o.line(" * Reads a value from JSON. Unknown fields are ignored and only whitespace may");
+        o.line(" * follow the object.");
+        o.line(" *");
+        o.line(" * @param json JSON object");
+        o.line(" * @return value");
+        o.line(" * @throws IllegalArgumentException if the JSON is malformed or a mandatory field is");
+        o.line(" *                                  missing");
+        o.line(" */");
+        o.line("public static %s fromJson(@%s %s json) {", o.add(className), Nonnull.class, String.class);
+        o.line("try {");
+        o.line("return readAll(new %s(json));", JsonReader.class);
+        o.close();
+        o.line("catch (%s e) {", IOException.class);
+        o.line("// not thrown when reading from a string");
+        o.line("throw new %s(e);", UncheckedIOException.class);
+        o.close();
+        o.close();
+        o.line();
+        o.line("public static %s read(@%s %s reader) throws %s {", o.add(className), Nonnull.class, Reader.class,
+                IOException.class);
+        o.line("return readAll(new %s(reader));", JsonReader.class);
+        o.close();
+        o.line();
+        o.line("public static %s read(@%s %s in) throws %s {", o.add(className), Nonnull.class, InputStream.class,
+                IOException.class);
+        o.line("return read(new %s(in, %s.UTF_8));", InputStreamReader.class, StandardCharsets.class);
+        o.close();
+        o.line();
+        o.line("private static %s readAll(%s r) throws %s {", o.add(className), JsonReader.class,
+                IOException.class);
+        o.line("%s value = read(r);", o.add(className));
+        o.line("r.end();");
+        o.line("return value;");
+        o.close();
+        o.line();
+        o.line("public static %s read(@%s %s r) throws %s {", o.add(className), Nonnull.class, JsonReader.class,
+                IOException.class);
+        for (Parameter p : parameters) {
+            declareJsonLocal(o, p);
+        }
+        o.line("r.beginObject();");
+        o.line("while (r.hasNext()) {");
+        // a string switch is compiled to a lookupswitch on the hash code of the name
+        o.line("switch (r.nextName()) {");
+        for (Parameter p : parameters) {
+            o.line("case \"%s\":", p.name());
+            o.right();
+            readJsonField(o, p);
+            o.line("break;");
+            o.left();
+        }
+        o.line("default:");
+        o.right();
+        o.line("r.skipValue();");
+        o.left();
+        o.close();
+        o.close();
+        o.line("r.endObject();");
+        List<String> args = new ArrayList<>();
+        for (Parameter p : parameters) {
+            String variable = "_" + p.name();
+            boolean mandatory = !p.isOptional() && !p.isNullable();
+            if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+                o.line("%s.checkArgument(%sPresent, \"missing field %s\");", Preconditions.class, variable, p.name());
+            } else if (mandatory) {
+                o.line("%s.checkNotNull(%s, \"%s\");", Preconditions.class, variable, p.name());
+            }
+            if (!p.isOptional() && exactCollectionType(p.typeModel()) != null) {
+                args.add(String.format("%s.%s(%s)", o.add(Helpers.class), immutableMethod(p, options), variable));
+            } else {
+                args.add(variable);
+            }
+        }
+        writeBuildStatement(o, className, parameters, construction, implementationClassName, args, true, options);
+        o.close();
+        writeConstructorHolder(o, className, parameters, construction, options);
+        o.close();
+        return o;
+    }
+
+    private static void writeJsonField(Output o, Parameter p) {
+        String variable = "_" + p.name();
+        o.line("%s %s = value.%s();", o.add(p.type()), variable, p.name());
+        if (p.isOptional()) {
+            scalarType(p, p.innerType(), "JSON");
+            o.line("if (%s.isPresent()) {", variable);
+            o.line("w.name(\"%s\").value(%s.get());", p.name(), variable);
+            o.close();
+        } else if (!PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            // null fields are omitted
+            o.line("if (%s != null) {", variable);
+            writeJsonValue(o, p, variable);
+            o.close();
+        } else {
+            writeJsonValue(o, p, variable);
+        }
+    }
+
+    private static void writeJsonValue(Output o, Parameter p, String variable) {
+        TypeModel tm = p.typeModel();
+        CollectionType collectionType = exactCollectionType(tm);
+        if (collectionType == null) {
+            scalarType(p, p.type(), "JSON");
+            o.line("w.name(\"%s\").value(%s);", p.name(), variable);
+        } else if (collectionType == CollectionType.MAP) {
+            String keyType = jsonMapKeyType(p, tm);
+            String valueType = tm.typeArguments.get(1).render();
+            scalarType(p, valueType, "JSON");
+            o.line("w.name(\"%s\").beginObject();", p.name());
+            o.line("for (%s.Entry<%s, %s> x : %s.entrySet()) {", Map.class, o.add(keyType), o.add(valueType),
+                    variable);
+            o.line("w.name(x.getKey()).value(x.getValue());");
+            o.close();
+            o.line("w.endObject();");
+        } else {
+            String elementType = tm.typeArguments.get(0).render();
+            scalarType(p, elementType, "JSON");
+            o.line("w.name(\"%s\").beginArray();", p.name());
+            o.line("for (%s x : %s) {", o.add(elementType), variable);
+            o.line("w.value(x);");
+            o.close();
+            o.line("w.endArray();");
+        }
+    }
+
+    private static String jsonMapKeyType(Parameter p, TypeModel tm) {
+        String keyType = tm.typeArguments.get(0).render();
+        if (!keyType.equals(String.class.getCanonicalName())) {
+            throw new IllegalStateException(
+                    "map key type " + keyType + " of field " + p.name() + " is not supported by JSON (must be String)");
+        }
+        return keyType;
+    }
+
+    private static void declareJsonLocal(Output o, Parameter p) {
+        String variable = "_" + p.name();
+        TypeModel tm = p.typeModel();
+        CollectionType collectionType = exactCollectionType(tm);
+        if (p.isOptional()) {
+            o.line("%s %s = %s.empty();", o.add(p.type()), variable, o.add(p.outerType()));
+        } else if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            o.line("%s %s = %s;", p.type(), variable, p.type().equals("boolean") ? "false" : "0");
+            o.line("boolean %sPresent = false;", variable);
+        } else if (collectionType != null) {
+            o.line("%s %s = null;", collectionLocal(o, tm, collectionType, "").declaredType, variable);
+        } else {
+            o.line("%s %s = null;", o.add(p.type()), variable);
+        }
+    }
+
+    private static void readJsonField(Output o, Parameter p) {
+        String variable = "_" + p.name();
+        TypeModel tm = p.typeModel();
+        CollectionType collectionType = exactCollectionType(tm);
+        if (p.isOptional()) {
+            String optional = o.add(p.outerType());
+            o.line("%s = r.nextNull() ? %s.empty() : %s.of(%s);", variable, optional, optional,
+                    readJsonScalar(p, p.innerType()));
+        } else if (PRIMITIVE_WRAPPERS.containsKey(p.type())) {
+            o.line("%s = %s;", variable, readJsonScalar(p, p.type()));
+            o.line("%sPresent = true;", variable);
+        } else if (collectionType == null) {
+            o.line("%s = r.nextNull() ? null : %s;", variable, readJsonScalar(p, p.type()));
+        } else {
+            CollectionLocal local = collectionLocal(o, tm, collectionType, "");
+            String valueType = tm.typeArguments.get(tm.typeArguments.size() - 1).render();
+            o.line("if (r.nextNull()) {");
+            o.line("%s = null;", variable);
+            o.close();
+            o.line("else {");
+            o.line("%s = %s;", variable, local.creation);
+            if (collectionType == CollectionType.MAP) {
+                jsonMapKeyType(p, tm);
+                o.line("r.beginObject();");
+                o.line("while (r.hasNext()) {");
+                o.line("%s.put%s(r.nextName(), %s);", variable, local.addSuffix, readJsonScalar(p, valueType));
+                o.close();
+                o.line("r.endObject();");
+            } else {
+                o.line("r.beginArray();");
+                o.line("while (r.hasNext()) {");
+                o.line("%s.add%s(%s);", variable, local.addSuffix, readJsonScalar(p, valueType));
+                o.close();
+                o.line("r.endArray();");
+            }
+            o.close();
+        }
+    }
+
+    private static String readJsonScalar(Parameter p, String type) {
+        String primitive = scalarType(p, type, "JSON");
+        if (primitive.equals(String.class.getCanonicalName())) {
+            return "r.nextString()";
+        } else {
+            return "r.next" + upperFirst(primitive) + "()";
+        }
+    }
+
+    private static final class CollectionLocal {
+        final String declaredType;
+        final String creation;
+        // suffix of the add or put method that avoids boxing
+        final String addSuffix;
+
+        CollectionLocal(String declaredType, String creation, String addSuffix) {
+            this.declaredType = declaredType;
+            this.creation = creation;
+            this.addSuffix = addSuffix;
+        }
+    }
+
+    /**
+     * Returns the type and creation expression of a local variable that
+     * accumulates the elements of a {@code List}, {@code Set} or {@code Map} field
+     * as it is read. The variable is declared with the implementation
+     * type so that primitive elements can be added without boxing.
+     */
+    private static CollectionLocal collectionLocal(Output o, TypeModel tm, CollectionType collectionType,
+            String capacity) {
+        String valueType = tm.typeArguments.get(tm.typeArguments.size() - 1).render();
+        final PrimitiveCollection primitive;
+        final String implementation;
+        if (collectionType == CollectionType.LIST) {
+            primitive = PRIMITIVE_LISTS.get(valueType);
+            implementation = ArrayList.class.getCanonicalName();
+        } else if (collectionType == CollectionType.SET) {
+            primitive = PRIMITIVE_SETS.get(valueType);
+            implementation = LinkedHashSet.class.getCanonicalName();
+        } else {
+            primitive = PRIMITIVE_MAPS.get(valueType);
+            implementation = LinkedHashMap.class.getCanonicalName();
+        }
+        if (primitive == null) {
+            String declaredType = o.add(implementation) + "<"
+                    + tm.typeArguments.stream().map(x -> o.add(x.render())).collect(Collectors.joining(", ")) + ">";
+            return new CollectionLocal(declaredType, String.format("new %s<>(%s)", o.add(implementation), capacity),
+                    "");
+        }
+        String addSuffix = upperFirst(toPrimitive(valueType));
+        if (collectionType == CollectionType.MAP) {
+            return new CollectionLocal(
+                    o.add(primitive.collection) + "<" + o.add(tm.typeArguments.get(0).render()) + ">",
+                    String.format("new %s<>()", o.add(primitive.collection)), addSuffix);
+        } else {
+            return new CollectionLocal(o.add(primitive.collection),
+                    String.format("new %s()", o.add(primitive.collection)), addSuffix);
+        }
+    }
+
+    private static String readCodecScalar(Output o, Parameter p, String type) {
+        String primitive = scalarType(p, type, "codec");
+        if (primitive.equals("boolean")) {
+            return String.format("%s.readBoolean(buffer)", o.add(Codecs.class));
+        } else if (primitive.equals(String.class.getCanonicalName())) {
+            return String.format("%s.readString(buffer)", o.add(Codecs.class));
+        } else {
+            return String.format("buffer.get%s()", BUFFER_METHOD_SUFFIXES.get(primitive));
+        }
+    }
+
+    private static CollectionType exactCollectionType(TypeModel tm) {
+        if (COMPACT_COLLECTION_TYPES.contains(tm.baseType)) {
+            return COLLECTION_TYPES.get(tm.baseType);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the primitive type name for a primitive or boxed type, or the type
+     * itself if it is {@code String}.
+     */
+    private static String scalarType(Parameter p, String type, String target) {
+        if (PRIMITIVE_WRAPPERS.containsKey(type) || type.equals(String.class.getCanonicalName())) {
+            return type;
+        } else if (TYPE_PRIMITIVES.containsKey(type)) {
+            return TYPE_PRIMITIVES.get(type);
+        } else if (type.equals(Character.class.getCanonicalName())) {
+            return "char";
+        } else {
+            throw new IllegalStateException("type " + type + " of field " + p.name()
+                    + " is not supported by " + target + " (supported are primitives, their boxed types, String and"
+                    + " Optional, List, Set and Map of those)");
+        }
+    }
+
+    private static final Map<String, String> BUFFER_METHOD_SUFFIXES = createBufferMethodSuffixes();
+
+    private static Map<String, String> createBufferMethodSuffixes() {
+        Map<String, String> map = new HashMap<>();
+        map.put("byte", "");
+        map.put("short", "Short");
+        map.put("int", "Int");
+        map.put("long", "Long");
+        map.put("float", "Float");
+        map.put("double", "Double");
+        map.put("char", "Char");
+        return map;
+    }
+
+    private static Map<String, Class<?>> createPrimitiveWrappers() {
+        Map<String, Class<?>> map = new HashMap<>();
+        map.put("byte", Byte.class);
+        map.put("short", Short.class);
+        map.put("int", Integer.class);
+        map.put("long", Long.class);
+        map.put("float", Float.class);
+        map.put("double", Double.class);
+        map.put("boolean", Boolean.class);
+        map.put("char", Character.class);
+        return map;
+    }
 }
@@ -1,12 +1,16 @@
 package com.github.davidmoten.chained.processor;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 
 final class Imports {
 
     private final String ownerClassName;
+    // class name -> name used in code (simple name if imported), sorted for output
     private final Map<String, String> imports = new TreeMap<>();
+    // simple name -> class name imported with that simple name
+    private final Map<String, String> simpleNames = new HashMap<>();
 
     Imports(String ownerClassName) {
         this.ownerClassName = ownerClassName;
@@ -17,21 +21,21 @@ final class Imports {
     }
 
     String add(String className) {
-        if (className.contains("<")) {
-            StringBuilder b = new StringBuilder();
-            StringBuilder cls = new StringBuilder();
+        if (className.indexOf('<') != -1) {
+            StringBuilder b = new StringBuilder(className.length());
+            int start = 0;
             for (int i = 0; i < className.length(); i++) {
                 char c = className.charAt(i);
                 if (c == '<' || c == '>' || c == ',' || c == '?' || c == ' ') {
-                    b.append(addNoGenerics(cls.toString()));
+                    if (i > start) {
+                        b.append(addNoGenerics(className.substring(start, i)));
+                    }
                     b.append(c);
-                    cls.setLength(0);
-                } else {
-                    cls.append(c);
+                    start = i + 1;
                 }
             }
-            if (cls.length() > 0) {
-                b.append(addNoGenerics(cls.toString()));
+            if (start < className.length()) {
+                b.append(addNoGenerics(className.substring(start)));
             }
             return b.toString();
         } else {
@@ -40,15 +44,18 @@ final class Imports {
     }
 
     private String addNoGenerics(String className) {
-        if (imports.containsKey(className)) {
-            return imports.get(className);
+        String name = imports.get(className);
+        if (name != null) {
+            return name;
         } else {
             String simpleName = Util.simpleClassName(className);
-            if (imports.containsValue(simpleName)) {
+            if (simpleNames.containsKey(simpleName)) {
+                // another class already uses the simple name
                 imports.put(className, className);
                 return className;
             } else {
                 imports.put(className, simpleName);
+                simpleNames.put(simpleName, className);
                 return simpleName;
             }
         }
@@ -56,9 +63,9 @@ final class Imports {
     
     String toCode() {
         StringBuilder b = new StringBuilder();
-        for (String className : imports.keySet()) {
-            String simpleName = imports.get(className);
-            if (!className.equals(simpleName) && !Util.pkg(className).equals(Util.pkg(ownerClassName))) {
+        for (Map.Entry<String, String> entry : imports.entrySet()) {
+            String className = entry.getKey();
+            if (!className.equals(entry.getValue()) && !Util.pkg(className).equals(Util.pkg(ownerClassName))) {
                 b.append("import ").append(className).append(";\n");
             }
         }
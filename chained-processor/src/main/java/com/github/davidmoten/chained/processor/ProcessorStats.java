@@ -0,0 +1,227 @@
+package com.github.davidmoten.chained.processor;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.Messager;
+import javax.tools.Diagnostic.Kind;
+
+import com.github.davidmoten.chained.api.JsonWriter;
+import com.github.davidmoten.chained.processor.Generator.Construction;
+
+/**
+ * Timings and sizes collected by {@link BuilderProcessor} when the compiler
+ * option {@code -Achained.stats} is present. Reported at the end of
+ * compilation to the {@link Messager} and as a JSON file.
+ */
+final class ProcessorStats {
+
+    private static final int MAX_REPORTED_TYPES = 20;
+
+    private final List<RoundStats> rounds = new ArrayList<>();
+    private final List<TypeStats> types = new ArrayList<>();
+    private long javadocIndexNanos;
+
+    void javadocIndexNanos(long nanos) {
+        this.javadocIndexNanos = nanos;
+    }
+
+    RoundStats newRound() {
+        RoundStats round = new RoundStats(rounds.size() + 1);
+        rounds.add(round);
+        return round;
+    }
+
+    TypeStats newType(String className) {
+        TypeStats type = new TypeStats(className);
+        types.add(type);
+        return type;
+    }
+
+    static final class RoundStats {
+        final int number;
+        int types;
+        int files;
+        long modelNanos;
+        long renderNanos;
+        long writeNanos;
+
+        RoundStats(int number) {
+            this.number = number;
+        }
+    }
+
+    static final class TypeStats {
+        final String className;
+        Construction construction;
+        // includes javadocNanos
+        long modelNanos;
+        long javadocNanos;
+        // summed over the files of the type (measured on the rendering threads)
+        long renderNanos;
+        long writeNanos;
+        long bytes;
+        int files;
+
+        TypeStats(String className) {
+            this.className = className;
+        }
+
+        long totalNanos() {
+            return modelNanos + renderNanos + writeNanos;
+        }
+    }
+
+    void report(Messager messager) {
+        StringBuilder b = new StringBuilder();
+        b.append("chained stats: ") //
+                .append(types.size()).append(" types, ") //
+                .append(sum(x -> x.files)).append(" generated classes, ") //
+                .append(sum(x -> x.bytes)).append(" bytes, javadoc index ") //
+                .append(millis(javadocIndexNanos)).append("ms, javadoc load ") //
+                .append(millis(sum(x -> x.javadocNanos))).append("ms\n");
+        for (RoundStats r : rounds) {
+            b.append("  round ").append(r.number) //
+                    .append(": types=").append(r.types) //
+                    .append(", files=").append(r.files) //
+                    .append(", model=").append(millis(r.modelNanos)).append("ms") //
+                    .append(", render=").append(millis(r.renderNanos)).append("ms") //
+                    .append(", write=").append(millis(r.writeNanos)).append("ms\n");
+        }
+        List<String> reflection = types.stream() //
+                .filter(x -> x.construction == Construction.REFLECTION) //
+                .map(x -> x.className) //
+                .collect(Collectors.toList());
+        if (!reflection.isEmpty()) {
+            b.append("  REFLECTION construction: ").append(String.join(", ", reflection)).append("\n");
+        }
+        List<TypeStats> slowest = types.stream() //
+                .sorted(Comparator.comparingLong(TypeStats::totalNanos).reversed()) //
+                .limit(MAX_REPORTED_TYPES) //
+                .collect(Collectors.toList());
+        b.append("  slowest types (model/javadoc/render/write ms, bytes):\n");
+        for (TypeStats t : slowest) {
+            b.append("    ").append(t.className) //
+                    .append(" ").append(millis(t.modelNanos)) //
+                    .append("/").append(millis(t.javadocNanos)) //
+                    .append("/").append(millis(t.renderNanos)) //
+                    .append("/").append(millis(t.writeNanos)) //
+                    .append(" ").append(t.bytes).append("\n");
+        }
+        messager.printMessage(Kind.NOTE, b.toString());
+    }
+
+    void writeJson(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeJson(out);
+        }
+    }
+
+    void writeJson(Writer out) throws IOException {
+        JsonWriter w = new JsonWriter(out);
+        w.beginObject();
+        w.name("javadocIndexMicros").value(micros(javadocIndexNanos));
+        w.name("rounds").beginArray();
+        for (RoundStats r : rounds) {
+            w.beginObject();
+            w.name("round").value(r.number);
+            w.name("types").value(r.types);
+            w.name("files").value(r.files);
+            w.name("modelMicros").value(micros(r.modelNanos));
+            w.name("renderMicros").value(micros(r.renderNanos));
+            w.name("writeMicros").value(micros(r.writeNanos));
+            w.endObject();
+        }
+        w.endArray();
+        w.name("types").beginArray();
+        for (TypeStats t : types) {
+            w.beginObject();
+            w.name("className").value(t.className);
+            w.name("construction").value(t.construction == null ? null : t.construction.name());
+            w.name("modelMicros").value(micros(t.modelNanos));
+            w.name("javadocMicros").value(micros(t.javadocNanos));
+            w.name("renderMicros").value(micros(t.renderNanos));
+            w.name("writeMicros").value(micros(t.writeNanos));
+            w.name("files").value(t.files);
+            w.name("bytes").value(t.bytes);
+            w.endObject();
+        }
+        w.endArray();
+        w.endObject();
+    }
+
+    private long sum(ToLongFunction<TypeStats> f) {
+        return types.stream().mapToLong(f).sum();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * Counts the UTF-8 encoded size of the characters written.
+     */
+    static final class CountingWriter extends FilterWriter {
+
+        private long bytes;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            bytes += utf8Length((char) c);
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                bytes += utf8Length(cbuf[i]);
+            }
+            super.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                bytes += utf8Length(str.charAt(i));
+            }
+            super.write(str, off, len);
+        }
+
+        long bytes() {
+            return bytes;
+        }
+
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                // a surrogate pair is 4 bytes
+                return 2;
+            } else {
+                return 3;
+            }
+        }
+    }
+}
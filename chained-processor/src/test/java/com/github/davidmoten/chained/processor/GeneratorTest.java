@@ -1,15 +1,30 @@
 package com.github.davidmoten.chained.processor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.github.davidmoten.chained.processor.Generator.Construction;
+import com.github.davidmoten.chained.processor.Generator.Options;
 import com.github.davidmoten.chained.processor.Generator.Parameter;
 import com.github.davidmoten.chained.processor.Generator.TypeModel;
 
@@ -25,6 +40,71 @@ public class GeneratorTest {
         System.out.println(code);
     }
 
+    @Test
+    public void testJavadocIsNotParsedAsFormat() {
+        List<Parameter> list = new ArrayList<>();
+        list.add(new Parameter("String", "name", false, Optional.of("width in %d of {"), false));
+        list.add(new Parameter("int", "age", false, Optional.empty(), false));
+        String code = Generator.chainedBuilder("me.Thing", "me.builder.ThingBuilder", list, Construction.DIRECT, false,
+                "blah.ThingImpl", true);
+        assertTrue(code.contains("\n     * Sets width in %d of {.\n     * \n"), code);
+    }
+
+    @Test
+    public void testNonVisibleConstructorExceptionsSameForMethodHandlesAndReflection(@TempDir Path directory)
+            throws Exception {
+        for (boolean methodHandles : new boolean[] { true, false }) {
+            Class<?> builder = compileBuilderForPrivateConstructor(directory.resolve("mh" + methodHandles),
+                    methodHandles);
+            Method build = builder.getMethod("build", String.class, int.class);
+            assertNotNull(build.invoke(null, "fred", 1));
+            Throwable e = assertThrows(InvocationTargetException.class, () -> build.invoke(null, "fred", -1))
+                    .getCause();
+            assertEquals(IllegalArgumentException.class, e.getClass(), "methodHandles=" + methodHandles);
+            e = assertThrows(InvocationTargetException.class, () -> build.invoke(null, "fred", -2)).getCause();
+            assertEquals(RuntimeException.class, e.getClass(), "methodHandles=" + methodHandles);
+            assertEquals(IOException.class, e.getCause().getClass(), "methodHandles=" + methodHandles);
+        }
+    }
+
+    private static Class<?> compileBuilderForPrivateConstructor(Path directory, boolean methodHandles)
+            throws IOException, ClassNotFoundException {
+        List<Parameter> list = new ArrayList<>();
+        list.add(new Parameter("String", "name", false, Optional.empty(), false));
+        list.add(new Parameter("int", "age", false, Optional.empty(), false));
+        String builderCode = Generator.chainedBuilder("me.Thing", "me.builder.ThingBuilder", list,
+                Construction.REFLECTION, false, "me.ThingImpl", false, new Options().methodHandles(methodHandles))
+                .toString();
+        String thingCode = "package me;\n" //
+                + "public final class Thing {\n" //
+                + "    private Thing(String name, int age) throws java.io.IOException {\n" //
+                + "        if (age == -1) throw new IllegalArgumentException(\"age\");\n" //
+                + "        if (age == -2) throw new java.io.IOException(\"age\");\n" //
+                + "    }\n" //
+                + "}\n";
+        String callerCode = "package me;\n" //
+                + "public final class Caller {\n" //
+                + "    public static Thing build(String name, int age) {\n" //
+                + "        return me.builder.ThingBuilder.builder().name(name).age(age);\n" //
+                + "    }\n" //
+                + "}\n";
+        Path thing = write(directory.resolve("me/Thing.java"), thingCode);
+        Path caller = write(directory.resolve("me/Caller.java"), callerCode);
+        Path builder = write(directory.resolve("me/builder/ThingBuilder.java"), builderCode);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"), "-d",
+                directory.toString(), thing.toString(), caller.toString(), builder.toString());
+        assertEquals(0, result, builderCode);
+        URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() },
+                GeneratorTest.class.getClassLoader());
+        return loader.loadClass("me.Caller");
+    }
+
+    private static Path write(Path file, String text) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testTypeModelParsingNoGenerics() {
         TypeModel a = Generator.typeModel("java.util.Optional");
@@ -60,4 +140,14 @@ public class GeneratorTest {
         assertEquals("Long", f.baseType);
     }
 
+    @Test
+    public void testParameterDerivedTypes() {
+        Parameter p = new Parameter("java.util.Optional<java.util.Map<String,Integer>>", "scores", false,
+                Optional.empty(), false);
+        assertEquals("java.util.Optional", p.outerType());
+        assertEquals("java.util.Map<String,Integer>", p.innerType());
+        assertEquals("java.util.Optional", p.typeModel().baseType);
+        assertEquals("java.util.Optional<java.util.Map<String, Integer>>", p.typeModel().render());
+    }
+
 }
@@ -1,7 +1,10 @@
 package com.github.davidmoten.chained.processor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -37,4 +40,31 @@ public class ImportsTest {
                 + "public class Foo extends Exception {}", o.toString());
     }
 
+    @Test
+    public void testOutputWriteToSameAsToString() throws IOException {
+        Output o = new Output("blah");
+        o.line("package boo;");
+        o.importsHere();
+        o.line();
+        o.line("public class Foo extends %s {", Exception.class);
+        o.line("int x = 100 %% 7;");
+        o.close();
+        StringWriter w = new StringWriter();
+        o.writeTo(w);
+        assertEquals(o.toString(), w.toString());
+        assertEquals("package boo;\n"
+                + "\n"
+                + "import java.lang.Exception;\n"
+                + "\n"
+                + "public class Foo extends Exception {\n"
+                + "    int x = 100 % 7;\n"
+                + "}", w.toString());
+    }
+
+    @Test
+    public void testOutputUnsupportedFormatSpecifier() {
+        Output o = new Output("blah");
+        assertThrows(IllegalArgumentException.class, () -> o.line("%d", 1));
+    }
+
 }
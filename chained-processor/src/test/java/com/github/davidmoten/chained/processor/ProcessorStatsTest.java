@@ -0,0 +1,56 @@
+package com.github.davidmoten.chained.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.davidmoten.chained.processor.Generator.Construction;
+import com.github.davidmoten.chained.processor.ProcessorStats.CountingWriter;
+import com.github.davidmoten.chained.processor.ProcessorStats.RoundStats;
+import com.github.davidmoten.chained.processor.ProcessorStats.TypeStats;
+
+public class ProcessorStatsTest {
+
+    @Test
+    public void testCountingWriterCountsUtf8Bytes() throws IOException {
+        StringWriter w = new StringWriter();
+        try (CountingWriter out = new CountingWriter(w)) {
+            out.write("abé€");
+            out.write('c');
+            out.write(new char[] { '\ud83d', '\ude00' }, 0, 2);
+            // 1 + 1 + 2 + 3 + 1 + 4
+            assertEquals(12, out.bytes());
+        }
+        assertEquals("abé€c😀", w.toString());
+    }
+
+    @Test
+    public void testWriteJson(@TempDir Path directory) throws IOException {
+        ProcessorStats stats = new ProcessorStats();
+        stats.javadocIndexNanos(2000);
+        RoundStats round = stats.newRound();
+        round.types = 1;
+        round.files = 2;
+        TypeStats type = stats.newType("a.Thing");
+        type.construction = Construction.REFLECTION;
+        type.files = 2;
+        type.bytes = 100;
+        type.renderNanos = 3000;
+        Path file = directory.resolve("sub").resolve("stats.json");
+        stats.writeJson(file);
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("{\"javadocIndexMicros\":2,"), json);
+        assertTrue(json.contains("{\"round\":1,\"types\":1,\"files\":2,"), json);
+        assertTrue(json.contains(
+                "{\"className\":\"a.Thing\",\"construction\":\"REFLECTION\",\"modelMicros\":0,\"javadocMicros\":0,\"renderMicros\":3,"),
+                json);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+
+@Builder(batch = true)
+public interface BatchInterface {
+
+    String name();
+
+    long total();
+
+    @Check
+    default void check() {
+        Preconditions.checkArgument(total() >= 0, "total must not be negative");
+    }
+}
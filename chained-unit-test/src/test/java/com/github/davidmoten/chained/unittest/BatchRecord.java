@@ -0,0 +1,14 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder(batch = true)
+public record BatchRecord(String name, int count, double ratio, Optional<String> description,
+        @Nullable String note, List<Integer> values) {
+
+}
@@ -0,0 +1,15 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder
+public record BoxedCollections(@Nullable List<Integer> list, @Nullable Set<Long> set,
+        @Nullable Map<String, Double> map) {
+
+}
@@ -0,0 +1,5 @@
+package com.github.davidmoten.chained.unittest;
+
+public record Chain(int links) {
+
+}
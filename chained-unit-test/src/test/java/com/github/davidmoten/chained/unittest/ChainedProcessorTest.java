@@ -2,22 +2,93 @@ package com.github.davidmoten.chained.unittest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
+import com.github.davidmoten.chained.api.IntArrayList;
+import com.github.davidmoten.chained.api.IntHashSet;
+import com.github.davidmoten.chained.api.IntListBuilder;
+import com.github.davidmoten.chained.api.Interner;
+import com.github.davidmoten.chained.api.ObjIntHashMap;
+import com.github.davidmoten.chained.unittest.builder.BatchInterfaceBatchBuilder;
+import com.github.davidmoten.chained.unittest.builder.BatchRecordBatchBuilder;
+import com.github.davidmoten.chained.unittest.builder.BoxedCollectionsBuilder;
+import com.github.davidmoten.chained.unittest.builder.CheckedOnceBuilder;
+import com.github.davidmoten.chained.unittest.builder.CheckedOnceImpl;
+import com.github.davidmoten.chained.unittest.builder.CodecInterfaceBuilder;
+import com.github.davidmoten.chained.unittest.builder.CodecInterfaceCodec;
+import com.github.davidmoten.chained.unittest.builder.CodecPrivateConstructorBuilder;
+import com.github.davidmoten.chained.unittest.builder.CodecPrivateConstructorCodec;
+import com.github.davidmoten.chained.unittest.builder.CodecRecordCodec;
+import com.github.davidmoten.chained.unittest.builder.CompactCollectionsBuilder;
+import com.github.davidmoten.chained.unittest.builder.DeferredValidationBuilder;
+import com.github.davidmoten.chained.unittest.builder.DeferredValidationImpl;
+import com.github.davidmoten.chained.unittest.builder.FlyweightInterfaceBuilder;
+import com.github.davidmoten.chained.unittest.builder.FlyweightInterfaceFlyweight;
+import com.github.davidmoten.chained.unittest.builder.JsonRecordJson;
+import com.github.davidmoten.chained.unittest.builder.MemoizedInterfaceBuilder;
+import com.github.davidmoten.chained.unittest.builder.PointBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrivateConstructorBuilder;
+import com.github.davidmoten.chained.unittest.builder.InterfacePrimitivesBuilder;
+import com.github.davidmoten.chained.unittest.builder.InternInterfaceBuilder;
+import com.github.davidmoten.chained.unittest.builder.InternInterfaceImpl;
+import com.github.davidmoten.chained.unittest.builder.InternRecordBuilder;
+import com.github.davidmoten.chained.unittest.builder.InternRecordCodec;
+import com.github.davidmoten.chained.unittest.builder.InterfaceWithCollectionsBuilder;
+import com.github.davidmoten.chained.unittest.builder.InterfaceWithCollectionsImpl;
+import com.github.davidmoten.chained.unittest.builder.IsInterfaceImpl;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveValuesBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrivateConstructorWithPrimitiveBuilder;
+import com.github.davidmoten.chained.unittest.builder.ReusableBuilder;
+import com.github.davidmoten.chained.unittest.builder.ReusableOptionalsBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceAllMandatoryBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceStagesBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceWithChainBuilder;
 import com.github.davidmoten.chained.unittest.builder.SingleMandatoryBuilder;
 import com.github.davidmoten.chained.unittest.builder.SingleOptionalBuilder;
+import com.github.davidmoten.chained.unittest.builder.TransferCollectionsBuilder;
+import com.github.davidmoten.chained.unittest.builder.TransferCollectionsNullableBuilder;
+import com.github.davidmoten.chained.unittest.builder.TrustedDeferredInterfaceImpl;
+import com.github.davidmoten.chained.unittest.builder.TrustedInterfaceBuilder;
+import com.github.davidmoten.chained.unittest.builder.TrustedInterfaceImpl;
+import com.github.davidmoten.chained.unittest.builder.TrustedRecordBuilder;
+import com.github.davidmoten.chained.unittest.builder.ValidationOverrideBuilder;
+import com.github.davidmoten.chained.unittest.builder.ValidationOverrideDeferredBuilder;
 
 public class ChainedProcessorTest {
 
@@ -56,6 +127,21 @@ public class ChainedProcessorTest {
         assertEquals("Canberra", a.city());
     }
 
+    @Test
+    public void testPrivateConstructorWithPrimitive() {
+        PrivateConstructorWithPrimitive a = PrivateConstructorWithPrimitive.name("fred").age(10);
+        assertEquals("fred", a.name());
+        assertEquals(10, a.age());
+        PrivateConstructorWithPrimitive b = PrivateConstructorWithPrimitiveBuilder.copy(a).age(11).build();
+        assertEquals("fred", b.name());
+        assertEquals(11, b.age());
+    }
+
+    @Test
+    public void testPrivateConstructorExceptionIsNotWrapped() {
+        assertThrows(IllegalArgumentException.class, () -> PrivateConstructorWithPrimitive.name("fred").age(-1));
+    }
+
     @Test
     public void testDefaultConstructorSamePackageDoesNotUseReflection() throws IOException {
         DefaultConstructorSamePackage a = DefaultConstructorSamePackage.name("fred").city("Canberra");
@@ -130,6 +216,288 @@ public class ChainedProcessorTest {
         });
     }
 
+    @Test
+    public void testCheckCalledOncePerObject() {
+        int before = CheckedOnce.CHECKS.get();
+        CheckedOnce a = CheckedOnceBuilder.of("fred");
+        assertEquals("fred", a.name());
+        assertEquals(before + 1, CheckedOnce.CHECKS.get());
+        assertThrows(IllegalArgumentException.class, () -> CheckedOnceBuilder.of(""));
+        assertEquals(before + 2, CheckedOnce.CHECKS.get());
+    }
+
+    @Test
+    public void testBuildUncheckedRecordDoesNotWrap() {
+        List<Integer> values = Arrays.asList(1, 2, 3);
+        TrustedRecord a = TrustedRecordBuilder.builder().name("fred").values(values).description("tall")
+                .buildUnchecked();
+        assertEquals(TrustedRecordBuilder.builder().name("fred").values(values).description("tall").build(), a);
+        // the builder's own (mutable) copy is passed as is
+        a.values().add(4);
+        assertEquals(Arrays.asList(1, 2, 3, 4), a.values());
+    }
+
+    @Test
+    public void testBuildUncheckedInterface() {
+        TrustedInterface a = TrustedInterfaceBuilder.builder().name("fred").tags(Arrays.asList("a", "b"))
+                .buildUnchecked();
+        assertEquals(TrustedInterfaceBuilder.builder().name("fred").tags(Arrays.asList("a", "b")).build(), a);
+    }
+
+    @Test
+    public void testCreateTrustedRunsChecksWhenAssertionsEnabled() {
+        boolean assertionsEnabled = TrustedInterfaceImpl.class.desiredAssertionStatus();
+        if (assertionsEnabled) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> TrustedInterfaceImpl.createTrusted("", Collections.emptyList()));
+            assertThrows(IllegalArgumentException.class, () -> TrustedInterfaceImpl.createTrusted("fred", null));
+            // create() defers the check in this mode so createTrusted must run it
+            assertThrows(IllegalArgumentException.class, () -> TrustedDeferredInterfaceImpl.createTrusted("", 1));
+        } else {
+            assertEquals("", TrustedInterfaceImpl.createTrusted("", Collections.emptyList()).name());
+            assertEquals("", TrustedDeferredInterfaceImpl.createTrusted("", 1).name());
+        }
+        assertEquals("fred", TrustedDeferredInterfaceImpl.createTrusted("fred", 1).name());
+    }
+
+    @Test
+    public void testBatchBuilderRecord() {
+        List<BatchRecord> list = BatchRecordBatchBuilder.size(2) //
+                .name(Arrays.asList("a", "b")) //
+                .count(new int[] { 1, 2 }) //
+                .ratio(new double[] { 0.5, 1.5 }) //
+                .note(new LinkedList<>(Arrays.asList(null, "tall"))) //
+                .values(Arrays.asList(Arrays.asList(1), Collections.emptyList())) //
+                .build();
+        assertEquals(Arrays.asList( //
+                new BatchRecord("a", 1, 0.5, Optional.empty(), null, Arrays.asList(1)), //
+                new BatchRecord("b", 2, 1.5, Optional.empty(), "tall", Collections.emptyList())), list);
+        assertThrows(UnsupportedOperationException.class, () -> list.get(0).values().add(2));
+    }
+
+    @Test
+    public void testBatchBuilderParallelSameAsSerial() {
+        int n = 10000;
+        List<String> names = IntStream.range(0, n).mapToObj(i -> "name" + i).collect(Collectors.toList());
+        long[] totals = IntStream.range(0, n).asLongStream().toArray();
+        BatchInterfaceBatchBuilder b = BatchInterfaceBatchBuilder.size(n).name(names).total(totals);
+        List<BatchInterface> list = b.buildParallel();
+        assertEquals(Arrays.asList(b.buildArray()), list);
+        assertEquals("name9999", list.get(n - 1).name());
+        assertEquals(9999, list.get(n - 1).total());
+    }
+
+    @Test
+    public void testBatchBuilderChecks() {
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchInterfaceBatchBuilder.size(2).name(Arrays.asList("a", "b")).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchInterfaceBatchBuilder.size(2).name(Arrays.asList("a")));
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchInterfaceBatchBuilder.size(1).name(Arrays.asList("a")).total(new long[] { -1 }).build());
+    }
+
+    @Test
+    public void testBatchBuilderChecksColumnLengthsAgainOnBuild() {
+        List<String> names = new ArrayList<>(Arrays.asList("a", "b"));
+        BatchInterfaceBatchBuilder b = BatchInterfaceBatchBuilder.size(2).name(names).total(new long[] { 1, 2 });
+        names.remove(1);
+        assertThrows(IllegalArgumentException.class, b::build);
+        assertThrows(IllegalArgumentException.class, b::buildParallel);
+    }
+
+    @Test
+    public void testFlyweightRoundTrip() {
+        testFlyweightRoundTrip(ByteBuffer.allocate(1024));
+        testFlyweightRoundTrip(ByteBuffer.allocateDirect(1024));
+    }
+
+    private static void testFlyweightRoundTrip(ByteBuffer buffer) {
+        FlyweightInterface a = FlyweightInterfaceBuilder.builder().name("fred").level((byte) -3).time(123456789L)
+                .active(true).code('z').count(7).description("caf\u00e9").score(2.5).build();
+        FlyweightInterface b = FlyweightInterfaceBuilder.builder().name("").level((byte) 1).time(-1L).active(false)
+                .code('a').count(-7).build();
+        buffer.position(5);
+        int offsetA = FlyweightInterfaceFlyweight.append(buffer, a);
+        int offsetB = FlyweightInterfaceFlyweight.append(buffer, b);
+        assertEquals(5, offsetA);
+        assertEquals(buffer.position(), offsetB + FlyweightInterfaceFlyweight.FIXED_LENGTH);
+        FlyweightInterfaceFlyweight f = new FlyweightInterfaceFlyweight().wrap(buffer, offsetA);
+        assertEquals(offsetB - offsetA, f.recordLength());
+        assertEquals("fred", f.name());
+        assertEquals(-3, f.level());
+        assertEquals(123456789L, f.time());
+        assertTrue(f.active());
+        assertEquals('z', f.code());
+        assertEquals(7, f.count());
+        assertEquals(Optional.of("caf\u00e9"), f.description());
+        assertEquals(Optional.of(2.5), f.score());
+        assertEquals(a, f.copy());
+        assertEquals(a.toString(), f.toString());
+        f.wrap(buffer, offsetB);
+        assertEquals(b, f.copy());
+        assertEquals(Optional.empty(), f.description());
+        assertEquals(Optional.empty(), f.score());
+        assertEquals(FlyweightInterfaceFlyweight.FIXED_LENGTH, f.recordLength());
+    }
+
+    @Test
+    public void testInternRecord() {
+        Interner<InternRecord> interner = Interner.forClass(InternRecord.class);
+        long hits = interner.hits();
+        long misses = interner.misses();
+        InternRecord a = InternRecordBuilder.builder().symbol("ABC").exchange(1).currency("AUD").build();
+        InternRecord b = InternRecordBuilder.builder().symbol("ABC").exchange(1).currency("AUD").build();
+        InternRecord c = InternRecordBuilder.builder().symbol("ABC").exchange(2).build();
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertSame(a, InternRecordBuilder.builder().symbol("ABC").exchange(1).currency("AUD").buildUnchecked());
+        assertSame(c, InternRecordBuilder.copy(a).exchange(2).currency(Optional.empty()).build());
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        InternRecordCodec.write(new InternRecord("ABC", 1, Optional.of("AUD")), buffer);
+        buffer.flip();
+        assertSame(a, InternRecordCodec.read(buffer));
+        assertEquals(hits + 4, interner.hits());
+        assertEquals(misses + 2, interner.misses());
+        assertTrue(interner.size() >= 2);
+    }
+
+    @Test
+    public void testInternInterface() {
+        Interner<InternInterface> interner = Interner.forClass(InternInterface.class);
+        long hits = interner.hits();
+        InternInterface a = InternInterfaceBuilder.builder().name("fred").tags(List.of("a", "b"));
+        InternInterface b = InternInterfaceBuilder.builder().name("fred").tags().add("a").add("b").buildList();
+        InternInterface c = InternInterfaceBuilder.builder().name("fred").tags(List.of("a"));
+        assertSame(a, b);
+        assertNotSame(a, c);
+        assertSame(c, InternInterfaceImpl.create("fred", List.of("a")));
+        assertEquals(hits + 2, interner.hits());
+    }
+
+    @Test
+    public void testMemoizedDefaultMethodsComputedOnce() {
+        MemoizedInterface a = MemoizedInterfaceBuilder.builder().name(" Fred ").count(3);
+        int before = MemoizedInterface.CALLS.get();
+        assertEquals((((long) "fred".hashCode()) << 32) | 3, a.key());
+        assertEquals("fred", a.normalizedName());
+        assertEquals(a.key(), a.key());
+        assertEquals(before + 2, MemoizedInterface.CALLS.get());
+        assertEquals(4, a.notMemoized());
+        assertEquals(4, a.notMemoized());
+        assertEquals(before + 4, MemoizedInterface.CALLS.get());
+        // memoized values are not part of equality
+        assertEquals(a, MemoizedInterfaceBuilder.builder().name(" Fred ").count(3));
+    }
+
+    @Test
+    public void testMemoizedNullResultComputedOnce() {
+        MemoizedInterface a = MemoizedInterfaceBuilder.builder().name(" Fred ").count(3);
+        int before = MemoizedInterface.CALLS.get();
+        assertNull(a.nickname());
+        assertNull(a.nickname());
+        assertEquals(before + 1, MemoizedInterface.CALLS.get());
+        assertEquals("Al", MemoizedInterfaceBuilder.builder().name("Al").count(1).nickname());
+    }
+
+    @Test
+    public void testValidationOverriddenAtRuntime() {
+        // read when the implementation classes are initialized (no other test uses them)
+        String off = "chained.validation." + ValidationOverride.class.getName();
+        String deferred = "chained.validation." + ValidationOverrideDeferred.class.getName();
+        System.setProperty(off, "off");
+        System.setProperty(deferred, "DEFERRED");
+        try {
+            assertEquals("", ValidationOverrideBuilder.of("").name());
+            // the generated code only supports eager validation
+            assertThrows(IllegalArgumentException.class, () -> ValidationOverrideDeferredBuilder.of(""));
+        } finally {
+            System.clearProperty(off);
+            System.clearProperty(deferred);
+        }
+    }
+
+    @Test
+    public void testDeferredValidationChecksOnFirstAccess() {
+        int before = DeferredValidation.CHECKS.get();
+        DeferredValidation a = DeferredValidationBuilder.builder().name("fred").count(2);
+        assertEquals(before, DeferredValidation.CHECKS.get());
+        assertEquals("fred", a.name());
+        assertEquals(2, a.count());
+        assertEquals("fred", a.name());
+        assertEquals(before + 1, DeferredValidation.CHECKS.get());
+    }
+
+    @Test
+    public void testDeferredValidationInvalidObjectThrowsOnEveryAccess() {
+        DeferredValidation a = DeferredValidationBuilder.builder().name("").count(2);
+        assertThrows(IllegalArgumentException.class, () -> a.count());
+        assertThrows(IllegalArgumentException.class, () -> a.name());
+        assertThrows(IllegalArgumentException.class, () -> ((DeferredValidationImpl) a).validate());
+    }
+
+    @Test
+    public void testDeferredValidationConcurrentAccessWithFailingCheck() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 100; i++) {
+                DeferredValidation a = DeferredValidationBuilder.builder().name("fred").count(-1);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int j = 0; j < 8; j++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return a.count();
+                    }));
+                }
+                start.countDown();
+                for (Future<Integer> f : futures) {
+                    // no thread sees the invalid value
+                    ExecutionException e = assertThrows(ExecutionException.class, () -> f.get());
+                    assertTrue(e.getCause() instanceof IllegalArgumentException);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDeferredValidationConcurrentAccessChecksOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 100; i++) {
+                int before = DeferredValidation.CHECKS.get();
+                DeferredValidation a = DeferredValidationBuilder.builder().name("fred").count(i);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> futures = new ArrayList<>();
+                for (int j = 0; j < 8; j++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return a.count();
+                    }));
+                }
+                start.countDown();
+                for (Future<Integer> f : futures) {
+                    assertEquals(i, (int) f.get());
+                }
+                assertEquals(before + 1, DeferredValidation.CHECKS.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDeferredValidationExplicitValidate() {
+        int before = DeferredValidation.CHECKS.get();
+        DeferredValidationImpl a = (DeferredValidationImpl) DeferredValidationBuilder.builder().name("fred").count(2);
+        a.validate();
+        a.validate();
+        assertEquals(2, a.count());
+        assertEquals(before + 1, DeferredValidation.CHECKS.get());
+    }
+
     @Test
     public void testTransformFields() {
         TransformFields a = TransformFields.a(-1).b(-2);
@@ -242,4 +610,485 @@ public class ChainedProcessorTest {
         assertEquals(30, b.x());
         assertEquals(20, b.y());
     }
+
+    @Test
+    public void testSingleInstanceStages() {
+        SingleInstanceStagesBuilder b = SingleInstanceStagesBuilder.builder();
+        SingleInstanceStagesBuilder.BuilderWithName withName = b.name("fred");
+        SingleInstanceStagesBuilder.BuilderWithCity withCity = withName.city("London");
+        assertSame(b, withName);
+        assertSame(b, withCity);
+        SingleInstanceStages a = withCity.age(10).description("someone").build();
+        assertEquals("fred", a.name());
+        assertEquals("London", a.city());
+        assertEquals(10, (int) a.age().get());
+        assertEquals("someone", a.description().get());
+    }
+
+    @Test
+    public void testSingleInstanceAllMandatory() {
+        SingleInstanceAllMandatory a = SingleInstanceAllMandatory.name("fred").age(10).list().add(1, 2).buildList();
+        assertEquals("fred", a.name());
+        assertEquals(10, a.age());
+        assertEquals(Arrays.asList(1, 2), a.list());
+        SingleInstanceAllMandatory b = SingleInstanceAllMandatoryBuilder.builder().name("fred").age(10)
+                .list(Arrays.asList(1, 2));
+        assertEquals(a, b);
+    }
+
+    @Test
+    public void testSingleInstanceWithTypeNamedChain() {
+        SingleInstanceWithChain a = SingleInstanceWithChainBuilder.builder().name("anchor").chain(new Chain(12))
+                .count(2);
+        assertEquals(new SingleInstanceWithChain("anchor", new Chain(12), 2), a);
+    }
+
+    @Test
+    public void testSingleInstanceIncludeBuildMethod() {
+        SingleInstanceIncludeBuildMethod a = SingleInstanceIncludeBuildMethod.name("fred").age(10).build();
+        assertEquals("fred", a.name());
+        assertEquals(10, a.age());
+    }
+
+    @Test
+    public void testTransferCollectionsDoesNotCopy() {
+        List<Integer> list = new ArrayList<>(Arrays.asList(1, 2));
+        Set<String> set = new HashSet<>(Arrays.asList("a", "b"));
+        Map<String, Integer> map = new HashMap<>(Map.of("a", 1));
+        TransferCollections a = TransferCollectionsBuilder.builder().list(list).set(set).map(map);
+        assertEquals(list, a.list());
+        assertEquals(set, a.set());
+        assertEquals(map, a.map());
+        // the built object is a view over the transferred collections
+        list.add(3);
+        set.add("c");
+        map.put("b", 2);
+        assertEquals(Arrays.asList(1, 2, 3), a.list());
+        assertEquals(Set.of("a", "b", "c"), a.set());
+        assertEquals(Map.of("a", 1, "b", 2), a.map());
+        assertThrows(UnsupportedOperationException.class, () -> a.list().add(4));
+    }
+
+    @Test
+    public void testTransferCollectionsCopiedBeforeAdding() {
+        List<Integer> list = new ArrayList<>(Arrays.asList(1, 2));
+        Set<String> set = Set.of("a");
+        Map<String, Integer> map = Map.of("a", 1);
+        TransferCollectionsNullable a = TransferCollectionsNullableBuilder.builder() //
+                .list(list).list().add(3).buildList() //
+                .set(set).set().add("b").buildList() //
+                .map(map).map().put("b", 2).buildMap() //
+                .build();
+        assertEquals(Arrays.asList(1, 2, 3), a.list());
+        assertEquals(Set.of("a", "b"), a.set());
+        assertEquals(Map.of("a", 1, "b", 2), a.map());
+        // the transferred collections were not modified
+        assertEquals(Arrays.asList(1, 2), list);
+        assertEquals(Set.of("a"), set);
+        assertEquals(Map.of("a", 1), map);
+    }
+
+    @Test
+    public void testTransferCollectionsBuilderOwnedCollectionNotCopiedAgain() {
+        TransferCollectionsNullableBuilder b = TransferCollectionsNullableBuilder.builder().list().add(1).buildList();
+        // the built object is a view over the builder's list
+        TransferCollectionsNullable a = b.build();
+        b.list().add(2).buildList();
+        // the second list() call added to the same list rather than to a copy
+        assertEquals(Arrays.asList(1, 2), a.list());
+    }
+
+    @Test
+    public void testCompactCollections() {
+        List<String> list = new ArrayList<>(Arrays.asList("a", null, "c"));
+        Set<Integer> set = new LinkedHashSet<>();
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            set.add(19 - i);
+            map.put("k" + (19 - i), i);
+        }
+        set.add(null);
+        map.put(null, -1);
+        CompactCollections a = CompactCollectionsBuilder.builder().list(list).set(set).map(map);
+        // builder copied the inputs
+        list.clear();
+        set.clear();
+        map.clear();
+        assertEquals(Arrays.asList("a", null, "c"), a.list());
+        assertEquals(21, a.set().size());
+        assertTrue(a.set().contains(7));
+        assertTrue(a.set().contains(null));
+        assertFalse(a.set().contains(20));
+        assertEquals(21, a.map().size());
+        assertEquals(12, (int) a.map().get("k7"));
+        assertEquals(-1, (int) a.map().get(null));
+        assertNull(a.map().get("k20"));
+        // insertion order is preserved
+        assertEquals("k19", a.map().keySet().iterator().next());
+        assertThrows(UnsupportedOperationException.class, () -> a.list().add("d"));
+        assertThrows(UnsupportedOperationException.class, () -> a.set().add(1));
+        assertThrows(UnsupportedOperationException.class, () -> a.set().remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> a.map().put("k", 1));
+        assertThrows(UnsupportedOperationException.class, () -> a.map().entrySet().iterator().next().setValue(1));
+    }
+
+    @Test
+    public void testCompactCollectionsSmall() {
+        CompactCollections a = CompactCollectionsBuilder.builder() //
+                .list(List.of()) //
+                .set(Set.of(1)) //
+                .map(Map.of("a", 1, "b", 2));
+        assertEquals(List.of(), a.list());
+        assertEquals(Set.of(1), a.set());
+        assertEquals(Map.of("a", 1, "b", 2), a.map());
+        assertEquals(Map.of("a", 1, "b", 2).hashCode(), a.map().hashCode());
+        assertThrows(UnsupportedOperationException.class, () -> a.set().add(2));
+    }
+
+    @Test
+    public void testCompactCollectionsOfTwoElements() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("b", 2);
+        map.put(null, 1);
+        CompactCollections a = CompactCollectionsBuilder.builder() //
+                .list(Arrays.asList("x", null)) //
+                .set(new LinkedHashSet<>(Arrays.asList(2, 1))) //
+                .map(map);
+        assertEquals(Arrays.asList("x", null), a.list());
+        assertEquals(Arrays.asList("x", null).hashCode(), a.list().hashCode());
+        assertThrows(IndexOutOfBoundsException.class, () -> a.list().get(2));
+        assertEquals(Set.of(1, 2), a.set());
+        assertFalse(a.set().contains(3));
+        assertEquals(map, a.map());
+        assertEquals(map.hashCode(), a.map().hashCode());
+        assertEquals(1, (int) a.map().get(null));
+        assertNull(a.map().get("c"));
+        assertEquals(Arrays.asList("b", null), new ArrayList<>(a.map().keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> a.list().set(0, "y"));
+        assertThrows(UnsupportedOperationException.class, () -> a.set().remove(1));
+        assertThrows(UnsupportedOperationException.class, () -> a.map().put("c", 3));
+        assertThrows(UnsupportedOperationException.class, () -> a.map().entrySet().iterator().next().setValue(3));
+    }
+
+    @Test
+    public void testPrimitiveListElements() {
+        IntListBuilder<PrimitiveList> b = PrimitiveList.name("julia").list();
+        for (int i = 0; i < 1000; i++) {
+            b.add(i);
+        }
+        Integer boxed = 1000;
+        PrimitiveList a = b.add(boxed).addAll(new int[] { 1001, 1002 }).buildList();
+        assertEquals(1003, a.list().size());
+        assertEquals(500, (int) a.list().get(500));
+        assertEquals(IntStream.range(0, 1003).boxed().collect(Collectors.toList()), a.list());
+        assertThrows(NullPointerException.class, () -> PrimitiveList.name("julia").list().add((Integer) null));
+    }
+
+    @Test
+    public void testBoxedCollectionsAcceptNullsByDefault() {
+        BoxedCollections a = BoxedCollectionsBuilder.builder() //
+                .list().add(1).add((Integer) null).buildList() //
+                .set().add((Long) null).buildList() //
+                .map().put("a", null).buildMap() //
+                .build();
+        assertEquals(Arrays.asList(1, null), a.list());
+        assertEquals(Collections.singleton(null), a.set());
+        assertEquals(Collections.singletonMap("a", null), a.map());
+    }
+
+    @Test
+    public void testPrimitiveSetElements() {
+        PrimitiveSet a = PrimitiveSet.name("fred").numbers().add(3).add(1).add(3).add(2).addAll(new int[] { 1, 100 }).buildList();
+        assertEquals(Set.of(1, 2, 3, 100), a.numbers());
+        assertEquals(Set.of(1, 2, 3, 100).hashCode(), a.numbers().hashCode());
+        // insertion order
+        assertEquals(Arrays.asList(3, 1, 2, 100), new ArrayList<>(a.numbers()));
+        assertTrue(a.numbers().contains(100));
+        assertFalse(a.numbers().contains(4));
+        assertFalse(a.numbers().contains("3"));
+    }
+
+    @Test
+    public void testPrimitiveMapValues() {
+        PrimitiveMap a = PrimitiveMap.name("fred").map().put("a", 1).put("b", Integer.valueOf(2)).put("a", 3).put(null, 4)
+                .buildMap();
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 3);
+        expected.put("b", 2);
+        expected.put(null, 4);
+        assertEquals(expected, a.map());
+        assertEquals(Arrays.asList("a", "b", null), new ArrayList<>(a.map().keySet()));
+        assertNull(a.map().get("c"));
+        PrimitiveValues b = PrimitiveValuesBuilder.builder().name("fred").values().put("x", 1.5).put("y", 2)
+                .buildMap();
+        assertEquals(Map.of("x", 1.5, "y", 2.0), b.values());
+    }
+
+    @Test
+    public void testPrimitiveCollectionsRemoval() {
+        IntHashSet set = new IntHashSet();
+        for (int i = 0; i < 100; i++) {
+            set.addInt(i);
+        }
+        set.removeIf(x -> x % 2 == 0);
+        assertEquals(50, set.size());
+        assertTrue(set.containsInt(51));
+        assertFalse(set.containsInt(50));
+        assertEquals(1, (int) set.iterator().next());
+        ObjIntHashMap<String> map = new ObjIntHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.putInt("k" + i, i);
+        }
+        assertEquals(7, (int) map.remove("k7"));
+        assertEquals(99, map.size());
+        assertEquals(8, map.getInt("k8", -1));
+        assertEquals(-1, map.getInt("k7", -1));
+        map.clear();
+        assertTrue(map.isEmpty());
+        IntArrayList list = new IntArrayList();
+        list.addAll(Arrays.asList(1, 2, 3));
+        list.add(1, 5);
+        list.remove(0);
+        assertEquals(Arrays.asList(5, 2, 3), list);
+    }
+
+    @Test
+    public void testInterfaceHashCodeSameAsObjectsHash() {
+        IsInterface a = IsInterface.builder().name("fred").yearOfBirth(1990).description("tall").build();
+        assertEquals(Objects.hash("fred", 1990, Optional.of("tall")), a.hashCode());
+    }
+
+    @Test
+    public void testInterfaceHashCodeCached() {
+        InterfacePrimitives a = InterfacePrimitivesBuilder.builder().name("fred").count(3).total(1L << 40)
+                .ratio(0.5).enabled(true).code('x');
+        InterfacePrimitives b = InterfacePrimitivesBuilder.builder().name("fred").count(3).total(1L << 40)
+                .ratio(0.5).enabled(true).code('x');
+        int expected = Objects.hash("fred", 3, 1L << 40, 0.5, true, 'x');
+        assertEquals(expected, a.hashCode());
+        assertEquals(expected, a.hashCode());
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+    }
+
+    @Test
+    public void testInterfaceEquals() {
+        InterfacePrimitives a = interfacePrimitives("fred", 3, Double.NaN);
+        // same semantics as comparing boxed values
+        assertEquals(a, interfacePrimitives("fred", 3, Double.NaN));
+        assertNotEquals(interfacePrimitives("fred", 3, 0.0), interfacePrimitives("fred", 3, -0.0));
+        assertNotEquals(a, interfacePrimitives("fred", 4, Double.NaN));
+        InterfacePrimitives b = interfacePrimitives("sam", 3, Double.NaN);
+        // with cached hash codes
+        a.hashCode();
+        b.hashCode();
+        assertNotEquals(a, b);
+        assertEquals(a, interfacePrimitives("fred", 3, Double.NaN));
+    }
+
+    private static InterfacePrimitives interfacePrimitives(String name, int count, double ratio) {
+        return InterfacePrimitivesBuilder.builder().name(name).count(count).total(1L << 40).ratio(ratio)
+                .enabled(true).code('x');
+    }
+
+    @Test
+    public void testInterfaceToString() throws IOException {
+        IsInterface a = IsInterface.builder().name("fred").yearOfBirth(1990).description("tall").build();
+        String expected = "IsInterfaceImpl[name=fred, yearOfBirth=1990, description=Optional[tall]]";
+        assertEquals(expected, a.toString());
+        StringWriter w = new StringWriter();
+        ((IsInterfaceImpl) a).appendTo(w);
+        assertEquals(expected, w.toString());
+    }
+
+    @Test
+    public void testInterfaceToStringTruncatedAndCached() throws IOException {
+        InterfaceWithCollections a = InterfaceWithCollectionsBuilder.builder() //
+                .name("fred") //
+                .scores(Map.of("a", 1)) //
+                .numbers(Arrays.asList(1, 2, 3, 4, 5));
+        String expected = "InterfaceWithCollectionsImpl[name=fred, scores={a=1}, numbers=[1, 2, 3, ...(2 more)]]";
+        assertEquals(expected, a.toString());
+        assertSame(a.toString(), a.toString());
+        StringWriter w = new StringWriter();
+        ((InterfaceWithCollectionsImpl) a).appendTo(w);
+        assertEquals(expected, w.toString());
+    }
+
+    @Test
+    public void testImplementationWithMethodsShareUnchangedFields() {
+        InterfaceWithCollectionsImpl a = (InterfaceWithCollectionsImpl) InterfaceWithCollectionsBuilder.builder() //
+                .name("fred") //
+                .scores(Map.of("a", 1)) //
+                .numbers(List.of(1, 2));
+        InterfaceWithCollectionsImpl b = a.withName("bill");
+        assertEquals("bill", b.name());
+        assertSame(a.scores(), b.scores());
+        assertSame(a.numbers(), b.numbers());
+        assertSame(a, a.withName("fred"));
+        assertSame(a, a.withNumbers(new ArrayList<>(List.of(1, 2))));
+        InterfaceWithCollectionsImpl c = a.withNumbers(new ArrayList<>(List.of(3)));
+        assertEquals(List.of(3), c.numbers());
+        assertThrows(UnsupportedOperationException.class, () -> c.numbers().add(4));
+        assertThrows(IllegalArgumentException.class, () -> a.withName(null));
+    }
+
+    @Test
+    public void testImplementationWithMethodCallsCheck() {
+        CheckedOnceImpl a = (CheckedOnceImpl) CheckedOnceBuilder.of("fred");
+        assertEquals("bill", a.withName("bill").name());
+        assertThrows(IllegalArgumentException.class, () -> a.withName(""));
+    }
+
+    @Test
+    public void testStaticWithMethods() {
+        Point a = new Point(1, 2);
+        assertEquals(new Point(3, 2), PointBuilder.withX(a, 3));
+        assertSame(a, PointBuilder.withY(a, 2));
+        PrivateConstructor b = PrivateConstructor.name("fred").city("Canberra");
+        PrivateConstructor c = PrivateConstructorBuilder.withCity(b, "Sydney");
+        assertEquals("fred", c.name());
+        assertEquals("Sydney", c.city());
+        assertSame(b, PrivateConstructorBuilder.withName(b, "fred"));
+    }
+
+    @Test
+    public void testReusableBuilder() throws InterruptedException {
+        List<Integer> numbers = new ArrayList<>(Arrays.asList(1, 2, 3));
+        Reusable a = ReusableBuilder.reusable() //
+                .numbers(numbers) //
+                .name("a") //
+                .count(1) //
+                .description("desc") //
+                .tags(Set.of("x")) //
+                .build();
+        numbers.add(4);
+        Reusable b = ReusableBuilder.reusable().numbers(List.of(5)).name("b").count(2).build();
+        assertEquals(new Reusable(List.of(1, 2, 3), "a", 1, Optional.of("desc"), Set.of("x")), a);
+        assertEquals(new Reusable(List.of(5), "b", 2, Optional.empty(), null), b);
+        assertSame(ReusableBuilder.reusable(), ReusableBuilder.reusable());
+        ReusableBuilder[] other = new ReusableBuilder[1];
+        Thread t = new Thread(() -> other[0] = ReusableBuilder.reusable());
+        t.start();
+        t.join();
+        assertNotSame(ReusableBuilder.reusable(), other[0]);
+    }
+
+    @Test
+    public void testReusableBuilderAllOptional() {
+        ReusableOptionals a = ReusableOptionalsBuilder.reusable().name("a").items(List.of("x", "y")).build();
+        ReusableOptionals b = ReusableOptionalsBuilder.reusable().build();
+        assertEquals(new ReusableOptionals(Optional.of("a"), List.of("x", "y")), a);
+        assertEquals(new ReusableOptionals(Optional.empty(), null), b);
+    }
+
+    @Test
+    public void testCodecRoundTrip() {
+        CodecRecord a = new CodecRecord("fred \u00e9", 1, 1L << 40, 1.5, 2.5f, (short) 3, (byte) 4, 'x', true, 5, null,
+                Optional.of(6L), List.of(1, 2, 3), new LinkedHashSet<>(List.of("a", "b")), Map.of("z", 1.0),
+                List.of("note"));
+        for (ByteBuffer buffer : List.of(ByteBuffer.allocate(1024), ByteBuffer.allocateDirect(1024))) {
+            CodecRecordCodec.write(a, buffer);
+            CodecRecordCodec.write(a, buffer);
+            buffer.flip();
+            assertEquals(a, CodecRecordCodec.read(buffer));
+            assertEquals(a, CodecRecordCodec.read(buffer));
+            assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testCodecRoundTripEmptyValues() {
+        CodecRecord a = new CodecRecord("", 0, 0, 0, 0, (short) 0, (byte) 0, 'a', false, 0, "comment",
+                Optional.empty(), List.of(), Set.of(), Map.of(), null);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        CodecRecordCodec.write(a, buffer);
+        buffer.flip();
+        CodecRecord b = CodecRecordCodec.read(buffer);
+        assertEquals(a, b);
+        assertThrows(UnsupportedOperationException.class, () -> b.numbers().add(1));
+    }
+
+    @Test
+    public void testCodecInterface() {
+        CodecInterface a = CodecInterfaceBuilder.builder().name("fred").count(3).items(List.of("a", "b")).build();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        CodecInterfaceCodec.write(a, buffer);
+        buffer.flip();
+        assertEquals(a, CodecInterfaceCodec.read(buffer));
+    }
+
+    @Test
+    public void testCodecRejectsCorruptSizes() {
+        CodecInterface a = CodecInterfaceBuilder.builder().name("fred").count(3).items(List.of()).build();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        CodecInterfaceCodec.write(a, buffer);
+        buffer.flip();
+        // name (length and bytes), count, description present flag then items size
+        buffer.putInt(13, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> CodecInterfaceCodec.read(buffer.duplicate()));
+        buffer.putInt(13, -1);
+        assertThrows(IllegalArgumentException.class, () -> CodecInterfaceCodec.read(buffer.duplicate()));
+        buffer.putInt(0, 1000);
+        assertThrows(IllegalArgumentException.class, () -> CodecInterfaceCodec.read(buffer.duplicate()));
+    }
+
+    @Test
+    public void testCodecPrivateConstructor() {
+        CodecPrivateConstructor a = CodecPrivateConstructorBuilder.builder().name("fred").ids(Set.of(1L, 2L));
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        CodecPrivateConstructorCodec.write(a, buffer);
+        buffer.flip();
+        CodecPrivateConstructor b = CodecPrivateConstructorCodec.read(buffer);
+        assertEquals("fred", b.name());
+        assertEquals(Set.of(1L, 2L), b.ids());
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws IOException {
+        JsonRecord a = new JsonRecord("fred \"quoted\"\n\u00e9", -1, Long.MIN_VALUE, 1.5, 2.5f, 'x', true, 5, null,
+                Optional.of(6L), List.of(1, 2, 3), new LinkedHashSet<>(List.of("a", "b")), Map.of("z", 1.0),
+                List.of());
+        String json = JsonRecordJson.toJson(a);
+        assertEquals("{\"name\":\"fred \\\"quoted\\\"\\n\u00e9\",\"count\":-1,\"total\":-9223372036854775808,"
+                + "\"ratio\":1.5,\"weight\":2.5,\"code\":\"x\",\"enabled\":true,\"boxed\":5,\"id\":6,"
+                + "\"numbers\":[1,2,3],\"tags\":[\"a\",\"b\"],\"values\":{\"z\":1.0},\"notes\":[]}", json);
+        assertEquals(a, JsonRecordJson.fromJson(json));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonRecordJson.write(a, bytes);
+        assertEquals(a, JsonRecordJson.read(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    public void testJsonReadLenientOrderAndUnknownFields() {
+        String json = "{ \"unknown\" : {\"a\": [1, 2.5e3, null, true, \"\\u0041\"]},\n"
+                + " \"values\": {}, \"tags\": [\"b\"], \"numbers\": [], \"id\": null, \"comment\": \"hi\",\n"
+                + " \"boxed\": 1, \"enabled\": false, \"code\": \"\\u0041\", \"weight\": 1, \"ratio\": 2e-1,\n"
+                + " \"total\": 3, \"count\": 2, \"name\": \"a\\tb\" }";
+        JsonRecord a = JsonRecordJson.fromJson(json);
+        assertEquals(new JsonRecord("a\tb", 2, 3, 0.2, 1f, 'A', false, 1, "hi", Optional.empty(), List.of(),
+                Set.of("b"), Map.of(), null), a);
+    }
+
+    @Test
+    public void testJsonReadMissingMandatoryField() {
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.fromJson("{\"name\":\"a\"}"));
+    }
+
+    @Test
+    public void testJsonReadMalformed() {
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.fromJson("{\"name\" \"a\"}"));
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.fromJson("{\"count\":1.5}"));
+    }
+
+    @Test
+    public void testJsonReadRejectsTrailingContent() throws IOException {
+        JsonRecord a = new JsonRecord("fred", 1, 2, 1.5, 2.5f, 'x', true, 5, null, Optional.empty(), List.of(),
+                Set.of(), Map.of(), null);
+        String json = JsonRecordJson.toJson(a);
+        assertEquals(a, JsonRecordJson.fromJson(" " + json + " \n"));
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.fromJson(json + " garbage"));
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.fromJson(json + json));
+        assertThrows(IllegalArgumentException.class, () -> JsonRecordJson.read(new StringReader(json + "}")));
+    }
 }
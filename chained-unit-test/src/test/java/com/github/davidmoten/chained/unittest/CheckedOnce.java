@@ -0,0 +1,21 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+
+@Builder
+public interface CheckedOnce {
+
+    AtomicInteger CHECKS = new AtomicInteger();
+
+    String name();
+
+    @Check
+    default void check() {
+        CHECKS.incrementAndGet();
+        Preconditions.checkArgument(!name().isEmpty(), "name must not be empty");
+    }
+}
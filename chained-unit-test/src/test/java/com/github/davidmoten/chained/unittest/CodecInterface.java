@@ -0,0 +1,18 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(codec = true)
+public interface CodecInterface {
+
+    String name();
+
+    int count();
+
+    Optional<String> description();
+
+    List<String> items();
+}
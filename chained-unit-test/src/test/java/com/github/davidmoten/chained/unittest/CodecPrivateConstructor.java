@@ -0,0 +1,25 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(codec = true)
+public final class CodecPrivateConstructor {
+
+    private final String name;
+    private final Set<Long> ids;
+
+    private CodecPrivateConstructor(String name, Set<Long> ids) {
+        this.name = name;
+        this.ids = ids;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Set<Long> ids() {
+        return ids;
+    }
+}
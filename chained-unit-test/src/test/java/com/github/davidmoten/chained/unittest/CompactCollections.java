@@ -0,0 +1,11 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(compactCollections = true)
+public record CompactCollections(List<String> list, Set<Integer> set, Map<String, Integer> map) {
+}
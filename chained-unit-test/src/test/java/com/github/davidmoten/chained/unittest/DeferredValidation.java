@@ -0,0 +1,25 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+import com.github.davidmoten.chained.api.annotation.Validation;
+
+@Builder(validation = Validation.DEFERRED)
+public interface DeferredValidation {
+
+    AtomicInteger CHECKS = new AtomicInteger();
+
+    String name();
+
+    int count();
+
+    @Check
+    default void check() {
+        CHECKS.incrementAndGet();
+        Preconditions.checkArgument(!name().isEmpty(), "name must not be empty");
+        Preconditions.checkArgument(count() >= 0, "count must not be negative");
+    }
+}
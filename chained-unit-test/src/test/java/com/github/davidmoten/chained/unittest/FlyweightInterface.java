@@ -0,0 +1,25 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(flyweight = true)
+public interface FlyweightInterface {
+
+    String name();
+
+    byte level();
+
+    long time();
+
+    boolean active();
+
+    Optional<String> description();
+
+    char code();
+
+    Optional<Double> score();
+
+    Integer count();
+}
@@ -0,0 +1,19 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(cacheHashCode = true)
+public interface InterfacePrimitives {
+
+    String name();
+
+    int count();
+
+    long total();
+
+    double ratio();
+
+    boolean enabled();
+
+    char code();
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(cacheToString = true, toStringMaxElements = 3)
+public interface InterfaceWithCollections {
+
+    String name();
+
+    Map<String, Integer> scores();
+
+    List<Integer> numbers();
+}
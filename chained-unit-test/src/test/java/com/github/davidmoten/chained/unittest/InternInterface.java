@@ -0,0 +1,13 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(intern = true, trusted = true, cacheHashCode = true)
+public interface InternInterface {
+
+    String name();
+
+    List<String> tags();
+}
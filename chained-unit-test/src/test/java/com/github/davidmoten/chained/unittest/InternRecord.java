@@ -0,0 +1,10 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(intern = true, codec = true, trusted = true)
+public record InternRecord(String symbol, int exchange, Optional<String> currency) {
+
+}
@@ -0,0 +1,16 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder(json = true)
+public record JsonRecord(String name, int count, long total, double ratio, float weight, char code,
+        boolean enabled, Integer boxed, @Nullable String comment, Optional<Long> id, List<Integer> numbers,
+        Set<String> tags, Map<String, Double> values, @Nullable List<String> notes) {
+}
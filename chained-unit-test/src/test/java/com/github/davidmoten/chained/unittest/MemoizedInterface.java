@@ -0,0 +1,41 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Memoized;
+
+@Builder
+public interface MemoizedInterface {
+
+    AtomicInteger CALLS = new AtomicInteger();
+
+    String name();
+
+    int count();
+
+    @Memoized
+    default String normalizedName() {
+        CALLS.incrementAndGet();
+        return name().trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    @Memoized
+    default long key() {
+        CALLS.incrementAndGet();
+        return ((long) normalizedName().hashCode() << 32) | (count() & 0xffffffffL);
+    }
+
+    @Memoized
+    default String nickname() {
+        CALLS.incrementAndGet();
+        // null unless the name is short
+        return name().trim().length() <= 3 ? name().trim() : null;
+    }
+
+    default int notMemoized() {
+        CALLS.incrementAndGet();
+        return count() + 1;
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveListBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveListBuilder.BuilderWithName;
+
+@Builder(primitiveCollections = true)
+public record PrimitiveList(String name, List<Integer> list) {
+    public static BuilderWithName name(String name) {
+        return PrimitiveListBuilder.builder().name(name);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Map;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveMapBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveMapBuilder.BuilderWithName;
+
+@Builder(primitiveCollections = true)
+public record PrimitiveMap(String name, Map<String, Integer> map) {
+    public static BuilderWithName name(String name) {
+        return PrimitiveMapBuilder.builder().name(name);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveSetBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrimitiveSetBuilder.BuilderWithName;
+
+@Builder(primitiveCollections = true)
+public record PrimitiveSet(String name, Set<Integer> numbers) {
+    public static BuilderWithName name(String name) {
+        return PrimitiveSetBuilder.builder().name(name);
+    }
+}
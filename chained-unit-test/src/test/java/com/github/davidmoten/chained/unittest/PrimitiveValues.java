@@ -0,0 +1,9 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Map;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(primitiveCollections = true)
+public record PrimitiveValues(String name, Map<String, Double> values) {
+}
@@ -0,0 +1,31 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.unittest.builder.PrivateConstructorWithPrimitiveBuilder;
+import com.github.davidmoten.chained.unittest.builder.PrivateConstructorWithPrimitiveBuilder.BuilderWithName;
+
+@Builder
+public final class PrivateConstructorWithPrimitive {
+
+    private final String name;
+    private final int age;
+
+    private PrivateConstructorWithPrimitive(String name, int age) {
+        Preconditions.checkArgument(age >= 0, "age must be non-negative");
+        this.name = name;
+        this.age = age;
+    }
+
+    public static BuilderWithName name(String name) {
+        return PrivateConstructorWithPrimitiveBuilder.builder().name(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int age() {
+        return age;
+    }
+}
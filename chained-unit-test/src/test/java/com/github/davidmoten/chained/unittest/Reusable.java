@@ -0,0 +1,14 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder(reusable = true)
+public record Reusable(List<Integer> numbers, String name, int count, Optional<String> description,
+        @Nullable Set<String> tags) {
+}
@@ -0,0 +1,12 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder(reusable = true)
+public record ReusableOptionals(Optional<String> name, @Nullable List<String> items) {
+}
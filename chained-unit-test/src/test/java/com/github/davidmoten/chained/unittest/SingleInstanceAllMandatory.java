@@ -0,0 +1,15 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceAllMandatoryBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceAllMandatoryBuilder.BuilderWithName;
+
+@Builder(stages = Stages.SINGLE_INSTANCE)
+public record SingleInstanceAllMandatory(String name, int age, List<Integer> list) {
+    public static BuilderWithName name(String name) {
+        return SingleInstanceAllMandatoryBuilder.builder().name(name);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceIncludeBuildMethodBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceIncludeBuildMethodBuilder.BuilderWithName;
+
+@Builder(stages = Stages.SINGLE_INSTANCE, alwaysIncludeBuildMethod = true)
+public interface SingleInstanceIncludeBuildMethod {
+
+    public static BuilderWithName name(String name) {
+        return SingleInstanceIncludeBuildMethodBuilder.builder().name(name);
+    }
+
+    String name();
+
+    int age();
+}
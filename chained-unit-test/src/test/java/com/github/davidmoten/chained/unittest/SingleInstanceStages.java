@@ -0,0 +1,15 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceStagesBuilder;
+import com.github.davidmoten.chained.unittest.builder.SingleInstanceStagesBuilder.BuilderWithName;
+
+@Builder(stages = Stages.SINGLE_INSTANCE)
+public record SingleInstanceStages(String name, Optional<Integer> age, String city, Optional<String> description) {
+    public static BuilderWithName name(String name) {
+        return SingleInstanceStagesBuilder.builder().name(name);
+    }
+}
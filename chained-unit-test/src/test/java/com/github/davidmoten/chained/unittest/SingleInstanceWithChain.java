@@ -0,0 +1,13 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Stages;
+
+/**
+ * Refers to a user type named {@code Chain} that must not be shadowed by the
+ * classes nested in the generated builder.
+ */
+@Builder(stages = Stages.SINGLE_INSTANCE)
+public record SingleInstanceWithChain(String name, Chain chain, int count) {
+
+}
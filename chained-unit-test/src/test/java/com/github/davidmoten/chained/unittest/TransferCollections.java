@@ -0,0 +1,11 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(transferCollections = true)
+public record TransferCollections(List<Integer> list, Set<String> set, Map<String, Integer> map) {
+}
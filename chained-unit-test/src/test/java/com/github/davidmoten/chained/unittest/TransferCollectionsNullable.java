@@ -0,0 +1,15 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+import jakarta.annotation.Nullable;
+
+@Builder(transferCollections = true, primitiveCollections = true)
+public record TransferCollectionsNullable(@Nullable List<Integer> list, @Nullable Set<String> set,
+        @Nullable Map<String, Integer> map) {
+
+}
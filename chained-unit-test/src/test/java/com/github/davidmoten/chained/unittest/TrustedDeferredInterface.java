@@ -0,0 +1,19 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+import com.github.davidmoten.chained.api.annotation.Validation;
+
+@Builder(trusted = true, validation = Validation.DEFERRED)
+public interface TrustedDeferredInterface {
+
+    String name();
+
+    int count();
+
+    @Check
+    default void check() {
+        Preconditions.checkArgument(!name().isEmpty(), "name must not be empty");
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+
+@Builder(trusted = true, alwaysIncludeBuildMethod = true)
+public interface TrustedInterface {
+
+    String name();
+
+    List<String> tags();
+
+    @Check
+    default void check() {
+        Preconditions.checkArgument(!name().isEmpty(), "name must not be empty");
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.davidmoten.chained.unittest;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.github.davidmoten.chained.api.annotation.Builder;
+
+@Builder(trusted = true)
+public record TrustedRecord(String name, List<Integer> values, Optional<String> description) {
+
+}
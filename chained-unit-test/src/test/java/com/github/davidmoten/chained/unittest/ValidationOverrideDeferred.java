@@ -0,0 +1,20 @@
+package com.github.davidmoten.chained.unittest;
+
+import com.github.davidmoten.chained.api.Preconditions;
+import com.github.davidmoten.chained.api.annotation.Builder;
+import com.github.davidmoten.chained.api.annotation.Check;
+
+/**
+ * The validation mode is overridden by a system property in a test, so this type
+ * must not be used by other tests.
+ */
+@Builder
+public interface ValidationOverrideDeferred {
+
+    String name();
+
+    @Check
+    default void check() {
+        Preconditions.checkArgument(!name().isEmpty(), "name must not be empty");
+    }
+}